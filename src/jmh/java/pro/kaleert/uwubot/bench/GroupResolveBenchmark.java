@@ -0,0 +1,51 @@
+package pro.kaleert.uwubot.bench;
+
+import org.openjdk.jmh.annotations.*;
+import pro.kaleert.uwubot.repository.LessonRepository;
+import pro.kaleert.uwubot.service.GroupService;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Разрешение пользовательского ввода в имя группы: точное совпадение, номер без буквы и промах.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GroupResolveBenchmark {
+
+    @Param({"30", "150"})
+    private int groups;
+
+    @Param({"И-100", "112", "и 105"})
+    private String input;
+
+    private GroupService groupService;
+
+    @Setup
+    public void setUp() {
+        List<String> names = IntStream.range(0, groups).mapToObj(SyntheticScheduleWorkbook::groupName).toList();
+
+        // Из репозитория GroupService нужен только список групп
+        LessonRepository repository = (LessonRepository) Proxy.newProxyInstance(
+                LessonRepository.class.getClassLoader(),
+                new Class<?>[]{LessonRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findAllGroupNames")) return names;
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        groupService = new GroupService(repository);
+    }
+
+    @Benchmark
+    public String resolve() {
+        try {
+            return groupService.resolveGroupName(input);
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+}
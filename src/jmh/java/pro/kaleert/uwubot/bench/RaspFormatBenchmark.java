@@ -0,0 +1,75 @@
+package pro.kaleert.uwubot.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import pro.kaleert.uwubot.command.RaspCommand;
+import pro.kaleert.uwubot.config.UwuBotConfig;
+import pro.kaleert.uwubot.entity.Lesson;
+import pro.kaleert.uwubot.service.parser.CellGridReader;
+import pro.kaleert.uwubot.service.parser.ScheduleBundle;
+import pro.kaleert.uwubot.service.parser.ScheduleParserService;
+import pro.kaleert.uwubot.service.parser.StreamingSheetReader;
+
+import java.io.ByteArrayInputStream;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Рендер /rasp для одной группы и форматирование отдельных строк уроков.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RaspFormatBenchmark {
+
+    @Param({"true", "false"})
+    private boolean showCodes;
+
+    @Param({"false", "true"})
+    private boolean withAliases;
+
+    private String group;
+    private List<Lesson> groupLessons;
+    private List<Lesson> allLessons;
+    private Map<String, String> aliases;
+    private LocalDate weekStart;
+
+    @Setup
+    public void setUp() throws Exception {
+        ScheduleParserService parser = new ScheduleParserService(new UwuBotConfig(), new CellGridReader(new UwuBotConfig(), new StreamingSheetReader()));
+        ScheduleBundle bundle = parser.parse(new ByteArrayInputStream(SyntheticScheduleWorkbook.generate(30, 6, 42L)));
+
+        allLessons = bundle.lessons();
+        group = allLessons.get(0).getGroupName();
+        groupLessons = allLessons.stream().filter(l -> l.getGroupName().equals(group)).toList();
+        weekStart = bundle.weekStart();
+        aliases = withAliases
+                ? Map.of("математика", "Матеша", "информатика", "Инфа", "физическая культура", "Физра")
+                : Collections.emptyMap();
+    }
+
+    @Benchmark
+    public String formatSchedule() {
+        return RaspCommand.formatSchedule(group, groupLessons, aliases, showCodes, weekStart);
+    }
+
+    @Benchmark
+    public void formatLessonLines(Blackhole bh) {
+        for (Lesson lesson : allLessons) {
+            bh.consume(RaspCommand.formatLesson(lesson, aliases, showCodes));
+        }
+    }
+
+    /**
+     * Старый путь для строк без разобранных подгрупп: разбор rawText на каждый вывод.
+     */
+    @Benchmark
+    public void formatLegacyRawText(Blackhole bh) {
+        for (Lesson lesson : allLessons) {
+            bh.consume(RaspCommand.formatLessonLine(lesson.getRawText(), aliases, showCodes));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package pro.kaleert.uwubot.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import pro.kaleert.uwubot.config.UwuBotConfig;
+import pro.kaleert.uwubot.entity.Lesson;
+import pro.kaleert.uwubot.service.ScheduleDiffService;
+import pro.kaleert.uwubot.service.parser.CellGridReader;
+import pro.kaleert.uwubot.service.parser.ScheduleBundle;
+import pro.kaleert.uwubot.service.parser.ScheduleParserService;
+import pro.kaleert.uwubot.service.parser.StreamingSheetReader;
+
+import java.io.ByteArrayInputStream;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Diff-отчёты по всем группам между двумя разными файлами (как при рассылке правок).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ScheduleDiffBenchmark {
+
+    @Param({"30"})
+    private int groups;
+
+    private Map<String, List<Lesson>> oldByGroup;
+    private Map<String, List<Lesson>> newByGroup;
+    private LocalDate weekStart;
+    private ScheduleDiffService diffService;
+
+    @Setup
+    public void setUp() throws Exception {
+        ScheduleParserService parser = new ScheduleParserService(new UwuBotConfig(), new CellGridReader(new UwuBotConfig(), new StreamingSheetReader()));
+        ScheduleBundle oldBundle = parser.parse(new ByteArrayInputStream(SyntheticScheduleWorkbook.generate(groups, 6, 1L)));
+        ScheduleBundle newBundle = parser.parse(new ByteArrayInputStream(SyntheticScheduleWorkbook.generate(groups, 6, 2L)));
+
+        oldByGroup = oldBundle.lessons().stream().collect(Collectors.groupingBy(Lesson::getGroupName));
+        newByGroup = newBundle.lessons().stream().collect(Collectors.groupingBy(Lesson::getGroupName));
+        weekStart = newBundle.weekStart();
+
+        // userId == null: алиасы не запрашиваются, репозиторий не нужен
+        diffService = new ScheduleDiffService(null);
+    }
+
+    @Benchmark
+    public void diffAllGroups(Blackhole bh) {
+        for (Map.Entry<String, List<Lesson>> entry : newByGroup.entrySet()) {
+            List<Lesson> old = oldByGroup.getOrDefault(entry.getKey(), Collections.emptyList());
+            bh.consume(diffService.generateDiffReport(null, entry.getKey(), old, entry.getValue(), weekStart));
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package pro.kaleert.uwubot.bench;
+
+import org.openjdk.jmh.annotations.*;
+import pro.kaleert.uwubot.config.UwuBotConfig;
+import pro.kaleert.uwubot.service.parser.CellGridReader;
+import pro.kaleert.uwubot.service.parser.ScheduleBundle;
+import pro.kaleert.uwubot.service.parser.ScheduleParserService;
+import pro.kaleert.uwubot.service.parser.StreamingSheetReader;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ScheduleParserBenchmark {
+
+    @Param({"10", "30", "60"})
+    private int groups;
+
+    @Param({"6"})
+    private int lessonsPerDay;
+
+    @Param({"1", "3"})
+    private int sheets;
+
+    @Param({"DOM", "STREAMING"})
+    private UwuBotConfig.ParserEngine engine;
+
+    @Param({"true", "false"})
+    private boolean parallel;
+
+    private byte[] file;
+    private ScheduleParserService parser;
+
+    @Setup
+    public void setUp() throws Exception {
+        file = SyntheticScheduleWorkbook.generate(sheets, groups, lessonsPerDay, 42L);
+
+        UwuBotConfig config = new UwuBotConfig();
+        config.getParser().setEngine(engine);
+        config.getParser().setParallel(parallel);
+        parser = new ScheduleParserService(config, new CellGridReader(config, new StreamingSheetReader()));
+    }
+
+    @Benchmark
+    public ScheduleBundle parse() {
+        return parser.parse(new ByteArrayInputStream(file));
+    }
+}
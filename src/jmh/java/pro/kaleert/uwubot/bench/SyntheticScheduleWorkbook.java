@@ -0,0 +1,140 @@
+package pro.kaleert.uwubot.bench;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Генератор xlsx в формате файлов edu.tatar.ru: заголовок с датами, строка групп по 4 колонки,
+ * объединённые ячейки дней и строка преподавателя (без номера пары) под каждой парой.
+ */
+public final class SyntheticScheduleWorkbook {
+
+    private static final String[] DAYS = {"ПОНЕДЕЛЬНИК", "ВТОРНИК", "СРЕДА", "ЧЕТВЕРГ", "ПЯТНИЦА", "СУББОТА"};
+    private static final String[] TIMES = {"8.30-10.00", "10.10-11.40", "12.10-13.40", "13.50-15.20", "15.30-17.00", "17.10-18.40"};
+    private static final String[] SUBJECTS = {
+            "ОД.01 Русский язык", "ОД.05 Математика", "ОП.02 Информатика", "МДК.01.01 Разработка программных модулей",
+            "ОГСЭ.03 Иностранный язык", "ОП.07 Физическая культура", "ОД.08 История", "МДК.02.01 Технология разработки"
+    };
+    private static final String[] TEACHERS = {
+            "Иванова А.А.", "Петров Б.Б.", "Сидорова В.В.", "Кузнецов Г.Г.", "Смирнова Д.Д.", "Попов Е.Е."
+    };
+
+    private SyntheticScheduleWorkbook() {}
+
+    /**
+     * Запись файла на диск для ручных прогонов: {@code <out.xlsx> [groups] [lessonsPerDay] [seed]}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: SyntheticScheduleWorkbook <out.xlsx> [groups] [lessonsPerDay] [seed]");
+            return;
+        }
+        int groups = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int lessonsPerDay = args.length > 2 ? Integer.parseInt(args[2]) : 6;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42L;
+        Files.write(Path.of(args[0]), generate(groups, lessonsPerDay, seed));
+    }
+
+    /**
+     * @param groups         количество групп (блоков по 4 колонки)
+     * @param lessonsPerDay  количество пар в дне (каждая пара — две строки: предмет и преподаватель)
+     * @param seed           зерно генератора, чтобы файлы были воспроизводимыми
+     */
+    public static byte[] generate(int groups, int lessonsPerDay, long seed) throws IOException {
+        return generate(1, groups, lessonsPerDay, seed);
+    }
+
+    /**
+     * Книга из нескольких листов (как файлы, где курсы/корпуса разнесены по листам).
+     * Группы на разных листах не повторяются.
+     */
+    public static byte[] generate(int sheets, int groups, int lessonsPerDay, long seed) throws IOException {
+        Random random = new Random(seed);
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            for (int i = 0; i < sheets; i++) {
+                fillSheet(workbook.createSheet("Курс " + (i + 1)), i * groups, groups, lessonsPerDay, random);
+            }
+            workbook.write(out);
+            return out.toByteArray();
+        }
+    }
+
+    private static void fillSheet(Sheet sheet, int firstGroup, int groups, int lessonsPerDay, Random random) {
+        int lastCol = 3 + groups * 4 - 1;
+
+        sheet.createRow(0).createCell(0).setCellValue("РАСПИСАНИЕ ЗАНЯТИЙ на 02.02.2026 - 07.02.2026");
+        sheet.addMergedRegion(new CellRangeAddress(0, 0, 0, lastCol));
+
+        Row header = sheet.createRow(2);
+        header.createCell(0).setCellValue("День");
+        header.createCell(1).setCellValue("№");
+        header.createCell(2).setCellValue("Время");
+        Row subHeader = sheet.createRow(3);
+        for (int g = 0; g < groups; g++) {
+            int col = 3 + g * 4;
+            header.createCell(col).setCellValue(groupName(firstGroup + g));
+            sheet.addMergedRegion(new CellRangeAddress(2, 2, col, col + 3));
+            subHeader.createCell(col).setCellValue("Дисциплина");
+            subHeader.createCell(col + 1).setCellValue("Ауд.");
+            subHeader.createCell(col + 2).setCellValue("Дисциплина");
+            subHeader.createCell(col + 3).setCellValue("Ауд.");
+        }
+
+        int r = 4;
+        for (String day : DAYS) {
+            int dayStart = r;
+            for (int lesson = 1; lesson <= lessonsPerDay; lesson++) {
+                Row subjects = sheet.createRow(r);
+                Row teachers = sheet.createRow(r + 1);
+                subjects.createCell(0).setCellValue(day);
+                subjects.createCell(1).setCellValue(lesson);
+                subjects.createCell(2).setCellValue(TIMES[(lesson - 1) % TIMES.length]);
+
+                for (int g = 0; g < groups; g++) {
+                    fillLesson(sheet, subjects, teachers, 3 + g * 4, random);
+                }
+                r += 2;
+            }
+            sheet.addMergedRegion(new CellRangeAddress(dayStart, r - 1, 0, 0));
+        }
+    }
+
+    private static void fillLesson(Sheet sheet, Row subjects, Row teachers, int col, Random random) {
+        int kind = random.nextInt(10);
+        if (kind < 2) return; // окно
+
+        String subject = SUBJECTS[random.nextInt(SUBJECTS.length)];
+        String room = String.valueOf(100 + random.nextInt(300));
+        String teacher = TEACHERS[random.nextInt(TEACHERS.length)];
+
+        if (kind < 7) {
+            // Пара у всей группы: предмет и преподаватель объединены на три колонки, аудитория в четвёртой
+            subjects.createCell(col).setCellValue(subject);
+            subjects.createCell(col + 3).setCellValue(Integer.parseInt(room));
+            teachers.createCell(col).setCellValue(teacher);
+            sheet.addMergedRegion(new CellRangeAddress(subjects.getRowNum(), subjects.getRowNum(), col, col + 2));
+            sheet.addMergedRegion(new CellRangeAddress(teachers.getRowNum(), teachers.getRowNum(), col, col + 2));
+        } else {
+            // Деление на подгруппы
+            subjects.createCell(col).setCellValue(subject);
+            subjects.createCell(col + 1).setCellValue(room);
+            subjects.createCell(col + 2).setCellValue(kind == 9 ? subject : SUBJECTS[random.nextInt(SUBJECTS.length)]);
+            subjects.createCell(col + 3).setCellValue(String.valueOf(100 + random.nextInt(300)));
+            teachers.createCell(col).setCellValue(teacher);
+            teachers.createCell(col + 2).setCellValue(TEACHERS[random.nextInt(TEACHERS.length)]);
+        }
+    }
+
+    public static String groupName(int index) {
+        char letter = "ИЭБМТ".charAt(index % 5);
+        return letter + "-" + (100 + index);
+    }
+}
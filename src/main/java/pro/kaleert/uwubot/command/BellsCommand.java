@@ -5,17 +5,24 @@ import com.kaleert.nyagram.command.CommandContext;
 import com.kaleert.nyagram.command.CommandHandler;
 import lombok.RequiredArgsConstructor;
 import pro.kaleert.uwubot.entity.ParsingMeta;
+import pro.kaleert.uwubot.entity.Student;
 import pro.kaleert.uwubot.repository.ParsingMetaRepository;
+import pro.kaleert.uwubot.repository.StudentRepository;
+import pro.kaleert.uwubot.service.source.ScheduleSourceRegistry;
 
 @BotCommand(value = "/bells", description = "Расписание звонков")
 @RequiredArgsConstructor
 public class BellsCommand {
 
     private final ParsingMetaRepository metaRepository;
+    private final StudentRepository studentRepository;
+    private final ScheduleSourceRegistry sourceRegistry;
 
     @CommandHandler(aliases = {"звонки", "время"})
     public void execute(CommandContext context) {
-        ParsingMeta meta = metaRepository.findById("schedule_file").orElse(null);
+        // Звонки у каждого источника свои: берём источник выбранной группы
+        String group = studentRepository.findById(context.getUserId()).map(Student::getSelectedGroup).orElse(null);
+        ParsingMeta meta = metaRepository.findById(sourceRegistry.sourceOfGroup(group).key()).orElse(null);
         
         if (meta == null || meta.getLastBellSchedule() == null || meta.getLastBellSchedule().isBlank()) {
             context.reply("⚠️ Информация о звонках пока не загружена.\nПопробуйте позже (после обновления файла).", "HTML");
@@ -9,6 +9,7 @@ import com.kaleert.nyagram.command.CommandHandler;
 import com.kaleert.nyagram.util.TextUtil;
 import lombok.RequiredArgsConstructor;
 import pro.kaleert.uwubot.entity.Lesson;
+import pro.kaleert.uwubot.entity.LessonPart;
 import pro.kaleert.uwubot.entity.ParsingMeta;
 import pro.kaleert.uwubot.entity.Student;
 import pro.kaleert.uwubot.entity.SubjectAlias;
@@ -17,7 +18,9 @@ import pro.kaleert.uwubot.repository.ParsingMetaRepository;
 import pro.kaleert.uwubot.repository.StudentRepository;
 import pro.kaleert.uwubot.repository.SubjectAliasRepository;
 import pro.kaleert.uwubot.service.GroupService;
+import pro.kaleert.uwubot.service.source.ScheduleSourceRegistry;
 import pro.kaleert.uwubot.service.UpdateService;
+import pro.kaleert.uwubot.util.ScheduleUtils;
 import pro.kaleert.uwubot.util.TextNormalizer;
 
 import java.time.DayOfWeek;
@@ -29,9 +32,7 @@ import java.util.List;
 import java.util.ArrayList;
 import java.util.Map;
 import java.util.TreeMap;
-import java.util.concurrent.CompletableFuture;
 import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @BotCommand(value = "/rasp", description = "Показать расписание")
@@ -44,8 +45,7 @@ public class RaspCommand {
     private final UpdateService updateService;
     private final GroupService groupService;
     private final ParsingMetaRepository metaRepository;
-
-    private static final Pattern PREFIX_PATTERN = Pattern.compile("^([А-ЯA-Z]{2,5}(\\.[А-ЯA-Z]{2,5})?(\\.\\d{1,2}){0,3}\\.?)\\s+(.*)");
+    private final ScheduleSourceRegistry sourceRegistry;
 
     @CommandHandler(aliases = {"рп", "расписание"})
     public void showSchedule(CommandContext context, 
@@ -70,7 +70,7 @@ public class RaspCommand {
                 targetName = groupService.resolveGroupName(arg);
                 lessons = lessonRepository.findByGroupName(targetName);
             } catch (IllegalArgumentException e) {
-                if (lessonRepository.count() > 0) {
+                if (lessonRepository.countCurrent() > 0) {
                      List<Lesson> teacherLessons = lessonRepository.findByTeacher(arg.trim());
                      if (!teacherLessons.isEmpty()) {
                          isTeacherSearch = true;
@@ -80,7 +80,7 @@ public class RaspCommand {
                 }
                 
                 if (lessons.isEmpty()) {
-                     if (lessonRepository.count() == 0) {
+                     if (lessonRepository.countCurrent() == 0) {
                          targetName = TextNormalizer.normalizeGroup(arg);
                      } else {
                          context.reply("⚠️ Не найдена группа или преподаватель: <b>" + TextUtil.escapeHtml(arg) + "</b>", "HTML");
@@ -101,16 +101,16 @@ public class RaspCommand {
             final String groupToFind = targetName;
             Message statusMsg = context.reply("⏳ В базе нет данных для <b>" + groupToFind + "</b>. Проверяю сайт...", "HTML").join();
             
-            CompletableFuture.runAsync(() -> {
-                updateService.forceUpdate(status -> {
-                    try {
-                        context.getClient().execute(EditMessageText.builder()
-                                .chatId(context.getChatId().toString())
-                                .messageId(Math.toIntExact(statusMsg.getMessageId()))
-                                .text(status)
-                                .build());
-                    } catch (Exception ignored) {}
-                });
+            // Обновляем только источник группы; если он уже обновляется (по расписанию или по запросу
+            // другого пользователя), присоединяемся к идущему обновлению
+            updateService.forceUpdateAsync(groupToFind, status -> {
+                try {
+                    context.getClient().execute(EditMessageText.builder()
+                            .chatId(context.getChatId().toString())
+                            .messageId(Math.toIntExact(statusMsg.getMessageId()))
+                            .text(status)
+                            .build());
+                } catch (Exception ignored) {}
             }).thenRun(() -> {
                 try {
                     String refreshedGroup = groupService.resolveGroupName(groupToFind);
@@ -132,7 +132,11 @@ public class RaspCommand {
     }
 
     private void sendScheduleResult(CommandContext context, Student student, String headerName, List<Lesson> lessons, boolean isTeacher) {
-        ParsingMeta meta = metaRepository.findById("schedule_file").orElse(null);
+        // Неделя — из метаданных источника, откуда пришли уроки (у преподавателя берём первый)
+        String sourceKey = lessons.isEmpty() || lessons.get(0).getSourceKey() == null
+                ? sourceRegistry.sourceOfGroup(headerName).key()
+                : lessons.get(0).getSourceKey();
+        ParsingMeta meta = metaRepository.findById(sourceKey).orElse(null);
         LocalDate weekStart = (meta != null && meta.getWeekStart() != null) 
                 ? meta.getWeekStart() 
                 : LocalDate.now().with(java.time.temporal.TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
@@ -163,15 +167,15 @@ public class RaspCommand {
             int maxLesson = dayLessons.stream().mapToInt(Lesson::getLessonNumber).max().orElse(5);
             int limit = Math.max(5, maxLesson);
 
-            for (int i = 1; i <= limit; i++) {
-                int currentNum = i;
-                String rawText = dayLessons.stream()
-                        .filter(l -> l.getLessonNumber() == currentNum)
-                        .map(Lesson::getRawText)
-                        .findFirst()
-                        .orElse("—");
+            Lesson[] byNumber = new Lesson[limit + 1];
+            for (Lesson lesson : dayLessons) {
+                if (lesson.getLessonNumber() > 0 && byNumber[lesson.getLessonNumber()] == null) {
+                    byNumber[lesson.getLessonNumber()] = lesson;
+                }
+            }
 
-                String formattedLine = formatLessonLine(rawText, aliases, showCodes);
+            for (int i = 1; i <= limit; i++) {
+                String formattedLine = formatLesson(byNumber[i], aliases, showCodes);
                 sb.append(i).append(" | ").append(formattedLine).append("\n");
             }
             sb.append("\n");
@@ -222,6 +226,39 @@ public class RaspCommand {
         return targetDate.format(DateTimeFormatter.ofPattern("dd.MM.yyyy"));
     }
 
+    /**
+     * Строка пары для вывода. Работает по полям, разобранным при парсинге; строки без них
+     * (сохранённые до появления {@link Lesson#getFirst()}) разбираются из rawText, как раньше.
+     */
+    public static String formatLesson(Lesson lesson, Map<String, String> aliases, boolean showCodes) {
+        if (lesson == null) return "—";
+        if (lesson.getFirst() == null) return formatLessonLine(lesson.getRawText(), aliases, showCodes);
+
+        LessonInfo info1 = partInfo(lesson.getFirst(), aliases, showCodes);
+        if (lesson.getSecond() == null) return formatSingle(info1);
+
+        LessonInfo info2 = partInfo(lesson.getSecond(), aliases, showCodes);
+        if (info1.name.equals("—") && info2.name.equals("—")) return "—";
+        if (info1.name.equals(info2.name) && !info1.name.equals("—")) {
+            if (info1.room.equals(info2.room)) return formatSingle(info1);
+            if (!info1.room.isEmpty() && !info2.room.isEmpty()) {
+                return info1.name + " [" + info1.room + "] / [" + info2.room + "]";
+            }
+        }
+        return formatSingle(info1) + " / " + formatSingle(info2);
+    }
+
+    private static LessonInfo partInfo(LessonPart part, Map<String, String> aliases, boolean showCodes) {
+        if (part.isEmpty()) return new LessonInfo("—", "");
+        String name = part.getName();
+        if (!aliases.isEmpty()) {
+            String alias = aliases.get(name.toLowerCase());
+            if (alias != null) name = alias;
+        }
+        String displayName = (showCodes && !part.getCode().isEmpty()) ? part.getCode() + " " + name : name;
+        return new LessonInfo(TextUtil.escapeHtml(displayName), TextUtil.escapeHtml(part.getRoom()));
+    }
+
     public static String formatLessonLine(String raw, Map<String, String> aliases, boolean showCodes) {
         if (raw.equals("—")) return raw;
         if (raw.contains(" / ")) {
@@ -264,7 +301,7 @@ public class RaspCommand {
         }
         String displayName = subjectFull;
         if (!showCodes) {
-            Matcher m = PREFIX_PATTERN.matcher(subjectFull);
+            Matcher m = ScheduleUtils.SUBJECT_CODE_PATTERN.matcher(subjectFull);
             if (m.matches()) {
                 String cleanName = m.group(4).trim();
                 if (cleanName.length() > 1) displayName = cleanName;
@@ -272,13 +309,13 @@ public class RaspCommand {
         }
         String lookupName = displayName;
         if (showCodes) {
-             Matcher m = PREFIX_PATTERN.matcher(subjectFull);
+             Matcher m = ScheduleUtils.SUBJECT_CODE_PATTERN.matcher(subjectFull);
              if (m.matches()) lookupName = m.group(4).trim();
         }
         String alias = aliases.get(lookupName.toLowerCase());
         if (alias != null) {
             if (showCodes) {
-                Matcher m = PREFIX_PATTERN.matcher(subjectFull);
+                Matcher m = ScheduleUtils.SUBJECT_CODE_PATTERN.matcher(subjectFull);
                 if (m.matches()) {
                     String code = m.group(1).trim();
                     displayName = code + " " + alias;
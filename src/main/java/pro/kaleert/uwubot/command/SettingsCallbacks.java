@@ -31,6 +31,7 @@ public class SettingsCallbacks {
         Student student = studentRepository.findById(context.getUserId()).orElse(null);
         if (student == null) return;
         student.setNotificationsEnabled(!student.isNotificationsEnabled());
+        student.setInactiveSince(null);
         studentRepository.save(student);
         updateSettingsMenu(context, student);
     }
@@ -26,6 +26,12 @@ public class StartCommand {
             s.setFirstName(context.getTelegramUser().getFirstName());
             return s;
         });
+        if (student.getInactiveSince() != null) {
+            // Рассылка отключила уведомления, когда чат был недоступен; раз пользователь вернулся — включаем обратно
+            student.setInactiveSince(null);
+            student.setNotificationsEnabled(true);
+            student.setChatId(context.getChatId());
+        }
         studentRepository.save(student);
 
         String messageText = """
@@ -3,6 +3,7 @@ package pro.kaleert.uwubot.command;
 import com.kaleert.nyagram.command.BotCommand;
 import com.kaleert.nyagram.command.CommandContext;
 import com.kaleert.nyagram.command.CommandHandler;
+import com.kaleert.nyagram.util.TextUtil;
 import com.kaleert.nyagram.util.TimeUtil;
 import com.kaleert.nyagram.i18n.LocaleService;
 import lombok.RequiredArgsConstructor;
@@ -10,12 +11,18 @@ import pro.kaleert.uwubot.entity.ParsingMeta;
 import pro.kaleert.uwubot.repository.LessonRepository;
 import pro.kaleert.uwubot.repository.ParsingMetaRepository;
 import pro.kaleert.uwubot.repository.StudentRepository;
+import pro.kaleert.uwubot.service.UpdateScheduler;
+import pro.kaleert.uwubot.service.notification.DeliveryStats;
+import pro.kaleert.uwubot.service.notification.FailureKind;
+import pro.kaleert.uwubot.service.source.ScheduleSource;
+import pro.kaleert.uwubot.service.source.ScheduleSourceRegistry;
 
 import java.lang.management.ManagementFactory;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Locale;
+import java.util.Map;
 
 @BotCommand(value = "/stats", description = "Статистика бота")
 @RequiredArgsConstructor
@@ -25,23 +32,57 @@ public class StatsCommand {
     private final LessonRepository lessonRepository;
     private final ParsingMetaRepository metaRepository;
     private final LocaleService localeService; 
+    private final UpdateScheduler updateScheduler;
+    private final ScheduleSourceRegistry sourceRegistry;
+    private final DeliveryStats deliveryStats;
 
     private static final DateTimeFormatter TIME_FMT = DateTimeFormatter.ofPattern("dd.MM HH:mm");
 
     @CommandHandler(aliases = {"стата", "статистика"})
     public void execute(CommandContext context) {
         long usersCount = studentRepository.count();
-        long lessonsCount = lessonRepository.count();
+        long inactiveCount = studentRepository.countByInactiveSinceIsNotNull();
+        long lessonsCount = lessonRepository.countCurrent();
         
-        ParsingMeta meta = metaRepository.findById("schedule_file").orElse(null);
-        String lastFile = (meta != null && meta.getLastFileUrl() != null) ? "Загружен" : "Нет";
-        
-        String lastCheck = (meta != null && meta.getLastCheckTime() != null) 
-                ? meta.getLastCheckTime().format(TIME_FMT) 
-                : "—";
-                
-        String lastUpdate = (meta != null && meta.getLastSuccessfulUpdate() != null) 
-                ? meta.getLastSuccessfulUpdate().format(TIME_FMT) 
+        Map<String, UpdateScheduler.Plan> plans = updateScheduler.currentPlans();
+        StringBuilder sources = new StringBuilder();
+        for (ScheduleSource source : sourceRegistry.sources()) {
+            ParsingMeta meta = metaRepository.findById(source.key()).orElse(null);
+
+            String lastCheck = (meta != null && meta.getLastCheckTime() != null)
+                    ? meta.getLastCheckTime().format(TIME_FMT)
+                    : "—";
+
+            String lastUpdate = (meta != null && meta.getLastSuccessfulUpdate() != null)
+                    ? meta.getLastSuccessfulUpdate().format(TIME_FMT)
+                    : "—";
+
+            UpdateScheduler.Plan plan = plans.get(source.key());
+            String interval = plan != null
+                    ? TimeUtil.formatDuration(plan.interval(), localeService, new Locale("ru")) + " (" + plan.reason() + ")"
+                    : "—";
+            String nextCheck = plan != null ? plan.nextCheck().format(TIME_FMT) : "—";
+
+            if (sourceRegistry.sources().size() > 1) {
+                sources.append("🌐 <b>").append(TextUtil.escapeHtml(source.key())).append("</b>\n");
+            }
+            sources.append(String.format("""
+                    🕵️ Последняя проверка: <b>%s</b>
+                    💾 Последнее обновление: <b>%s</b>
+                    ⏲ Интервал проверки: <b>%s</b>
+                    ⏭ Следующая проверка: <b>%s</b>
+                    
+                    """, lastCheck, lastUpdate, interval, nextCheck));
+        }
+
+        DeliveryStats.Snapshot delivery = deliveryStats.snapshot();
+        StringBuilder failures = new StringBuilder();
+        for (FailureKind kind : FailureKind.values()) {
+            long count = delivery.failed().get(kind);
+            if (count > 0) failures.append("\n    ").append(kind.title()).append(": <b>").append(count).append("</b>");
+        }
+        String latency = delivery.p50() != null
+                ? String.format("p50 <b>%d мс</b>, p99 <b>%d мс</b>", delivery.p50().toMillis(), delivery.p99().toMillis())
                 : "—";
 
         long uptimeMs = ManagementFactory.getRuntimeMXBean().getUptime();
@@ -50,15 +91,18 @@ public class StatsCommand {
         String text = String.format("""
                 📊 <b>Статистика бота</b>
                 
-                👥 Пользователей: <b>%d</b>
+                👥 Пользователей: <b>%d</b> (недоступны: <b>%d</b>)
                 📅 Записей уроков: <b>%d</b>
                 
-                🕵️ Последняя проверка: <b>%s</b>
-                💾 Последнее обновление: <b>%s</b>
+                %s📨 Рассылка с запуска: <b>%d</b> сообщ., доставлено <b>%d</b>, ошибок <b>%d</b>%s
+                🔁 Повторов: <b>%d</b>
+                ⏳ Задержка Telegram: %s
                 
                 ⏱ Аптайм: <b>%s</b>
                 """,
-                usersCount, lessonsCount, lastCheck, lastUpdate, uptime
+                usersCount, inactiveCount, lessonsCount, sources,
+                delivery.attempted(), delivery.delivered(), delivery.failedTotal(), failures,
+                delivery.retries(), latency, uptime
         );
 
         context.reply(text, "HTML");
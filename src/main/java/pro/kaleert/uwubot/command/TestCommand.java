@@ -11,15 +11,17 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import pro.kaleert.uwubot.entity.Lesson;
 import pro.kaleert.uwubot.entity.Student;
+import pro.kaleert.uwubot.repository.GroupFingerprintRepository;
 import pro.kaleert.uwubot.repository.LessonRepository;
 import pro.kaleert.uwubot.repository.StudentRepository;
+import pro.kaleert.uwubot.service.FileDownload;
+import pro.kaleert.uwubot.service.HttpFetcher;
 import pro.kaleert.uwubot.service.ScheduleDiffService;
 import pro.kaleert.uwubot.service.UpdateService;
 import pro.kaleert.uwubot.service.parser.ScheduleBundle;
 import pro.kaleert.uwubot.service.parser.ExcelDiagnosticService;
 
 import java.io.File;
-import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.net.URI;
 import java.net.URL;
@@ -38,8 +40,10 @@ public class TestCommand {
     private final UpdateService updateService;
     private final StudentRepository studentRepository;
     private final LessonRepository lessonRepository;
+    private final GroupFingerprintRepository fingerprintRepository;
     private final ScheduleDiffService diffService;
     private final ExcelDiagnosticService diagnosticService;
+    private final HttpFetcher httpFetcher;
 
     @CommandHandler(value = "parser", description = "Проверить парсинг файла")
     @LevelRequired(min = 10)
@@ -58,6 +62,8 @@ public class TestCommand {
     public void clearDb(CommandContext context) {
         long count = lessonRepository.count();
         lessonRepository.deleteAll();
+        // Без отпечатков следующее обновление разберёт все группы заново
+        fingerprintRepository.deleteAll();
         context.reply("🗑 База данных очищена. Удалено записей: " + count);
     }
     
@@ -86,8 +92,8 @@ public class TestCommand {
 
             log.info("Downloading for dump: {}", encodedUrl);
             
-            try (InputStream in = new URL(encodedUrl).openStream()) {
-                dumpFile = diagnosticService.createDump(in);
+            try (FileDownload source = httpFetcher.download(encodedUrl)) {
+                dumpFile = diagnosticService.createDump(source.path().toFile());
             }
 
             SendDocument doc = SendDocument.builder()
@@ -160,7 +166,7 @@ public class TestCommand {
                 String result;
                 if (isBroadcastTest) {
                     List<Lesson> myOld = lessonRepository.findByGroupName(myGroup);
-                    String diff = diffService.generateDiffReport(context.getUserId(), myGroup, myOld, myNew, fileDate);
+                    String diff = diffService.generateDiffReport(student, myGroup, myOld, myNew, fileDate);
                     result = (diff == null) ? "✅ Изменений нет." : "📩 <b>Вид уведомления:</b>\n\n" + diff;
                 } else {
                     result = RaspCommand.formatSchedule(myGroup, myNew, Collections.emptyMap(), true, fileDate);
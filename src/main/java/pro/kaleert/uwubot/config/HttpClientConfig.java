@@ -0,0 +1,24 @@
+package pro.kaleert.uwubot.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+@Configuration
+public class HttpClientConfig {
+
+    /**
+     * Один клиент на всё приложение: соединения с сайтом переиспользуются между проверками (keep-alive),
+     * по TLS договаривается HTTP/2 и сам откатывается на HTTP/1.1.
+     */
+    @Bean
+    public HttpClient httpClient(UwuBotConfig properties) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofMillis(properties.getHttp().getConnectTimeoutMs()))
+                .build();
+    }
+}
@@ -0,0 +1,23 @@
+package pro.kaleert.uwubot.config;
+
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JpaBatchConfig {
+
+    /**
+     * Пакетная запись уроков работает, только если включены JDBC-батчи и сортировка вставок/обновлений.
+     * Значения из config.yml имеют приоритет, здесь только умолчания для конфигов без этих строк.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer jdbcBatchingCustomizer() {
+        return properties -> {
+            properties.putIfAbsent("hibernate.jdbc.batch_size", "50");
+            properties.putIfAbsent("hibernate.order_inserts", "true");
+            properties.putIfAbsent("hibernate.order_updates", "true");
+            properties.putIfAbsent("hibernate.jdbc.batch_versioned_data", "true");
+        };
+    }
+}
@@ -0,0 +1,91 @@
+package pro.kaleert.uwubot.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import pro.kaleert.uwubot.service.source.ScheduleSourceRegistry;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Изменения схемы и данных, которые {@code ddl-auto: update} сделать не может, — SQL-скрипты
+ * {@code db/upgrade/V<n>__<описание>.sql}. Выполняются при старте, после обновления схемы Hibernate
+ * (поэтому {@link EntityManagerFactory} в зависимостях), по порядку номеров, каждый один раз и в своей транзакции;
+ * выполненные записываются в {@code schema_upgrades}. {@code ${default_source_key}} в скрипте заменяется
+ * строковым литералом с ключом источника по умолчанию — ему принадлежат данные, сохранённые до появления источников.
+ * <p>
+ * Ошибка скрипта останавливает запуск: с недомигрированной базой бот работал бы неверно
+ * (например, вставка урока упала бы на повторяющемся id).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SchemaUpgrades {
+
+    private static final String LOCATION = "classpath:db/upgrade/V*__*.sql";
+    private static final String DEFAULT_SOURCE_KEY = "${default_source_key}";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ScheduleSourceRegistry sourceRegistry;
+
+    @PostConstruct
+    public void apply() throws IOException {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS schema_upgrades ("
+                + "id VARCHAR(128) NOT NULL PRIMARY KEY, applied_at DATETIME NOT NULL)");
+        Set<String> applied = new HashSet<>(jdbcTemplate.queryForList("SELECT id FROM schema_upgrades", String.class));
+
+        for (Resource script : scripts()) {
+            String id = script.getFilename();
+            if (applied.contains(id)) continue;
+            Resource sql = new ByteArrayResource(script.getContentAsString(StandardCharsets.UTF_8)
+                    .replace(DEFAULT_SOURCE_KEY, literal(sourceRegistry.sourceOfGroup(null).key()))
+                    .getBytes(StandardCharsets.UTF_8), id);
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                        ScriptUtils.executeSqlScript(connection, new EncodedResource(sql, StandardCharsets.UTF_8));
+                        return null;
+                    });
+                    jdbcTemplate.update("INSERT INTO schema_upgrades (id, applied_at) VALUES (?, ?)", id, LocalDateTime.now());
+                });
+            } catch (RuntimeException e) {
+                throw new IllegalStateException("Schema upgrade " + id + " failed, fix the database and restart", e);
+            }
+            log.info("Schema upgrade {} applied", id);
+        }
+    }
+
+    private static String literal(String value) {
+        return "'" + value.replace("\\", "\\\\").replace("'", "''") + "'";
+    }
+
+    private static List<Resource> scripts() throws IOException {
+        return Arrays.stream(new PathMatchingResourcePatternResolver().getResources(LOCATION))
+                .sorted(Comparator.comparingInt(SchemaUpgrades::number))
+                .toList();
+    }
+
+    private static int number(Resource script) {
+        String name = script.getFilename();
+        return Integer.parseInt(name.substring(1, name.indexOf("__")));
+    }
+}
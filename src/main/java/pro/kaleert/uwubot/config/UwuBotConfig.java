@@ -6,6 +6,7 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Data
@@ -34,4 +35,153 @@ public class UwuBotConfig implements NyagramBotConfig {
     private List<String> allowedUpdates;
     private String apiUrl = "https://api.telegram.org";
     private String scheduleUrl = "https://edu.tatar.ru/";
+
+    /**
+     * Источники расписания. Пусто — один источник {@code schedule_file} со страницы {@link #scheduleUrl}.
+     */
+    private List<Source> sources = new ArrayList<>();
+
+    private Scheduler scheduler = new Scheduler();
+    private Parser parser = new Parser();
+    private Http http = new Http();
+    private Storage storage = new Storage();
+    private Notifications notifications = new Notifications();
+
+    @Data
+    public static class Scheduler {
+        /**
+         * Минимальный интервал проверки сайта (мс): в окнах публикации и сразу после изменения.
+         */
+        private long checkInterval = 600_000L;
+
+        /**
+         * Максимальный интервал (мс), до которого растёт пауза, пока файл не меняется.
+         */
+        private long maxInterval = 7_200_000L;
+
+        /**
+         * Полуширина окна публикации (мс) вокруг дня недели и времени прошлых изменений файла.
+         */
+        private long publicationWindow = 3_600_000L;
+
+        /**
+         * Если ссылки на странице не менялись, файл всё равно перепроверяется не реже этого интервала (мс):
+         * сайт иногда заменяет файл с правками под тем же именем.
+         */
+        private long fileRecheckInterval = 3_600_000L;
+    }
+
+    @Data
+    public static class Parser {
+        /**
+         * DOM — полная модель XSSF (как раньше), STREAMING — SAX-чтение через XSSFReader
+         * с откатом на DOM, если структура файла не распознана.
+         */
+        private ParserEngine engine = ParserEngine.DOM;
+
+        /**
+         * Разбирать блоки колонок групп параллельно. false — принудительно последовательный режим.
+         */
+        private boolean parallel = true;
+    }
+
+    @Data
+    public static class Http {
+        private int connectTimeoutMs = 10_000;
+
+        /**
+         * Таймаут ответа на запрос (до получения заголовков).
+         */
+        private int requestTimeoutMs = 60_000;
+
+        private String userAgent = "Mozilla/5.0 (compatible; UwuBot)";
+    }
+
+    @Data
+    public static class Storage {
+        /**
+         * Сколько последних версий расписания хранить (текущая + предыдущие), остальные удаляются после импорта.
+         */
+        private int retainedVersions = 3;
+    }
+
+    @Data
+    public static class Notifications {
+        /**
+         * Общий лимит отправки (сообщений в секунду); Telegram допускает около 30.
+         */
+        private int globalRatePerSecond = 30;
+
+        /**
+         * Минимальный интервал между сообщениями в один чат (мс).
+         */
+        private long perChatIntervalMs = 1_000L;
+
+        /**
+         * Попыток отправки одного сообщения, включая повторы после 429.
+         */
+        private int maxAttempts = 3;
+
+        /**
+         * Размер страницы получателей при чтении из БД и пачки сообщений, отдаваемой диспетчеру.
+         */
+        private int pageSize = 500;
+
+        /**
+         * Как часто обработчик outbox проверяет неотправленные сообщения (мс); после импорта он запускается сразу.
+         */
+        private long outboxPollInterval = 60_000L;
+
+        /**
+         * Сколько проходов рассылки сообщение переживает после временной ошибки (429, сеть),
+         * прежде чем считается недоставленным.
+         */
+        private int outboxMaxDeliveries = 5;
+
+        /**
+         * Пауза перед следующим проходом для сообщения с временной ошибкой (мс); растёт с каждой попыткой.
+         */
+        private long outboxRetryDelay = 60_000L;
+
+        /**
+         * Сколько хранить отправленные и окончательно не доставленные сообщения outbox (мс).
+         */
+        private long outboxRetention = 604_800_000L;
+    }
+
+    @Data
+    public static class Source {
+        /**
+         * Уникальный ключ источника: им помечены уроки и под ним хранится его {@code ParsingMeta}.
+         */
+        private String key;
+
+        private SourceType type = SourceType.WEB;
+
+        /**
+         * WEB: страница со ссылками на файлы расписания.
+         */
+        private String url;
+
+        /**
+         * DIRECTORY: каталог, из которого импортируется самый свежий xlsx.
+         */
+        private String path;
+
+        /**
+         * Префикс групп источника ("КФУ" -> "КФУ/П-101"), чтобы одинаковые номера групп разных
+         * колледжей не смешивались. Пустой префикс допустим только у одного источника.
+         */
+        private String namespace = "";
+    }
+
+    public enum SourceType {
+        WEB,
+        DIRECTORY
+    }
+
+    public enum ParserEngine {
+        DOM,
+        STREAMING
+    }
 }
@@ -0,0 +1,30 @@
+package pro.kaleert.uwubot.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Отпечатки группы из последнего принятого файла: блока колонок (сырые ячейки) и содержимого уроков.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "group_fingerprints")
+public class GroupFingerprint {
+    @Id
+    private String groupName;
+
+    private String sourceKey;
+
+    private String blockHash;
+
+    /**
+     * Отпечаток уроков группы в БД; {@code null} у записей, сохранённых до появления поля.
+     */
+    private String contentHash;
+}
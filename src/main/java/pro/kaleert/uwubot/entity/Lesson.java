@@ -7,16 +7,29 @@ import java.time.DayOfWeek;
 
 @Entity
 @Data
+// IDENTITY не даёт Hibernate пакетировать вставки, поэтому id из последовательности; для существующей
+// таблицы её сдвигает за старые auto_increment id скрипт db/upgrade (см. SchemaUpgrades)
 @Table(name = "lessons", indexes = {
     @Index(name = "idx_group_day", columnList = "group_name, day_of_week"),
-    @Index(name = "idx_teacher", columnList = "teacher")
+    @Index(name = "idx_teacher", columnList = "teacher"),
+    @Index(name = "idx_valid_to", columnList = "valid_to"),
+    @Index(name = "idx_source_valid_to", columnList = "source_key, valid_to")
 })
-@EqualsAndHashCode(exclude = "id")
+// first/second выводятся из rawText, поэтому в сравнении не участвуют: строки до их появления равны новым.
+// Версии — служебные поля хранения, а не содержимое урока
+@EqualsAndHashCode(exclude = {"id", "first", "second", "validFrom", "validTo"})
 public class Lesson {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "lesson_seq")
+    @SequenceGenerator(name = "lesson_seq", sequenceName = "lesson_seq", allocationSize = 50)
     private Long id;
 
+    /**
+     * Ключ источника расписания; версии ({@link #validFrom}, {@link #validTo}) считаются по его {@code ParsingMeta}.
+     */
+    @Column(name = "source_key")
+    private String sourceKey;
+
     @Column(name = "group_name")
     private String groupName;
 
@@ -31,4 +44,40 @@ public class Lesson {
     
     @Column(length = 1000)
     private String teacher;
+
+    /**
+     * Первая подгруппа или вся группа, если пара не делится. {@code null} у строк, сохранённых до появления поля.
+     */
+    @Embedded
+    @AttributeOverrides({
+        @AttributeOverride(name = "code", column = @Column(name = "first_code", length = 50)),
+        @AttributeOverride(name = "name", column = @Column(name = "first_name", length = 500)),
+        @AttributeOverride(name = "room", column = @Column(name = "first_room", length = 100)),
+        @AttributeOverride(name = "teacher", column = @Column(name = "first_teacher", length = 500))
+    })
+    private LessonPart first;
+
+    /**
+     * Вторая подгруппа; {@code null}, если пара общая.
+     */
+    @Embedded
+    @AttributeOverrides({
+        @AttributeOverride(name = "code", column = @Column(name = "second_code", length = 50)),
+        @AttributeOverride(name = "name", column = @Column(name = "second_name", length = 500)),
+        @AttributeOverride(name = "room", column = @Column(name = "second_room", length = 100)),
+        @AttributeOverride(name = "teacher", column = @Column(name = "second_teacher", length = 500))
+    })
+    private LessonPart second;
+
+    /**
+     * Версия расписания, в которой строка появилась.
+     */
+    @Column(name = "valid_from")
+    private long validFrom;
+
+    /**
+     * Версия, начиная с которой строка заменена или удалена; {@code null} — строка актуальна.
+     */
+    @Column(name = "valid_to")
+    private Long validTo;
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package pro.kaleert.uwubot.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Пара одной подгруппы, разобранная при парсинге: код предмета (ОД.05), название, аудитория и преподаватель.
+ * Пустые поля хранятся как "", пустое {@code name} — у подгруппы нет пары.
+ */
+@Embeddable
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LessonPart {
+    @Column(length = 50)
+    private String code;
+
+    @Column(length = 500)
+    private String name;
+
+    @Column(length = 100)
+    private String room;
+
+    @Column(length = 500)
+    private String teacher;
+
+    public boolean isEmpty() {
+        return name == null || name.isEmpty();
+    }
+}
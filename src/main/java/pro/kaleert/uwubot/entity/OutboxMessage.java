@@ -0,0 +1,71 @@
+package pro.kaleert.uwubot.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Уведомление одному чату, записанное в транзакции импорта. Рассылка читает ожидающие строки
+ * и отмечает каждую доставку, поэтому после перезапуска продолжает с того же места.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "notification_outbox", indexes = {
+    @Index(name = "idx_outbox_status_id", columnList = "status, id")
+})
+public class OutboxMessage {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_seq")
+    @SequenceGenerator(name = "outbox_seq", sequenceName = "outbox_seq", allocationSize = 50)
+    private Long id;
+
+    // Студент-получатель; пусто у сообщений конкретному чату (админу)
+    private Long userId;
+
+    private Long chatId;
+
+    // Лимит Telegram на текст сообщения
+    @Column(length = 4096)
+    private String text;
+
+    private String sourceKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private Status status = Status.PENDING;
+
+    private LocalDateTime createdAt;
+
+    // Время доставки или окончательной ошибки
+    private LocalDateTime processedAt;
+
+    @Column(length = 512)
+    private String lastError;
+
+    // Сколько проходов рассылки не смогли доставить сообщение из-за временной ошибки
+    private int attempts;
+
+    // Раньше этого времени сообщение не отправляется повторно; пусто — можно сразу
+    private LocalDateTime nextAttemptAt;
+
+    public OutboxMessage(Long chatId, String text, String sourceKey) {
+        this(null, chatId, text, sourceKey);
+    }
+
+    public OutboxMessage(Long userId, Long chatId, String text, String sourceKey) {
+        this.userId = userId;
+        this.chatId = chatId;
+        this.text = text;
+        this.sourceKey = sourceKey;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public enum Status {
+        PENDING,
+        SENT,
+        FAILED
+    }
+}
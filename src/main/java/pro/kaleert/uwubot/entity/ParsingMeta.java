@@ -27,4 +27,21 @@ public class ParsingMeta {
     
     private LocalDateTime lastCheckTime;
     private LocalDateTime lastSuccessfulUpdate;
+
+    // Валидаторы HTTP-кеша (ETag / Last-Modified) для условных запросов страницы и файла
+    private String pageEtag;
+    private String pageLastModified;
+    private String fileEtag;
+    private String fileLastModified;
+
+    // Отпечаток списка xlsx-ссылок на странице и время последнего скачивания файла
+    private String lastLinksHash;
+    private LocalDateTime lastFileCheckTime;
+
+    // Указатель на версию расписания, которую видят читатели; переключается в конце импорта
+    private Long currentVersion;
+
+    // Время последних импортов нового файла через запятую — по ним планировщик находит окна публикации
+    @Column(length = 1024)
+    private String changeHistory;
 }
\ No newline at end of file
@@ -1,24 +1,39 @@
 package pro.kaleert.uwubot.entity;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.Data;
 
+import java.time.LocalDateTime;
+
 @Entity
 @Data
-@Table(name = "students")
+// Покрывающий индекс рассылки: подписчики группы выбираются по нему без чтения строк таблицы,
+// уже упорядоченными по user_id — ключу постраничного чтения
+@Table(name = "students", indexes = {
+    @Index(name = "idx_student_recipients", columnList = "selected_group, notifications_enabled, user_id, chat_id, show_codes")
+})
 public class Student {
     @Id
     private Long userId;
     
+    @Column(name = "chat_id")
     private Long chatId;
     
     private String firstName;
     
+    @Column(name = "selected_group")
     private String selectedGroup;
     
+    @Column(name = "notifications_enabled")
     private boolean notificationsEnabled = true;
 
+    @Column(name = "show_codes")
     private boolean showCodes = false; 
+
+    // Когда рассылка получила постоянную ошибку (бот заблокирован, чат удалён); сбрасывается командой /start
+    private LocalDateTime inactiveSince;
 }
\ No newline at end of file
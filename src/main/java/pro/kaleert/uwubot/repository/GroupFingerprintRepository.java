@@ -0,0 +1,22 @@
+package pro.kaleert.uwubot.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import pro.kaleert.uwubot.entity.GroupFingerprint;
+
+import java.util.List;
+
+@Repository
+public interface GroupFingerprintRepository extends JpaRepository<GroupFingerprint, String> {
+
+    /**
+     * Отпечатки источника. Записанные до появления нескольких источников хранятся без ключа; с {@code includeLegacy}
+     * они читаются вместе с отпечатками источника по умолчанию, а следующий импорт перезаписывает их уже с ключом.
+     */
+    @Query("SELECT f FROM GroupFingerprint f WHERE f.sourceKey = :sourceKey"
+            + " OR (:includeLegacy = true AND f.sourceKey IS NULL)")
+    List<GroupFingerprint> findAllOfSource(@Param("sourceKey") String sourceKey,
+                                           @Param("includeLegacy") boolean includeLegacy);
+}
@@ -1,23 +1,58 @@
 package pro.kaleert.uwubot.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import pro.kaleert.uwubot.entity.Lesson;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface LessonRepository extends JpaRepository<Lesson, Long> {
-    
-    List<Lesson> findByGroupName(String groupName);
+
+    /**
+     * Строки, видимые в текущей версии расписания своего источника (указатель {@code ParsingMeta.currentVersion}).
+     * Версия и строки читаются одним запросом, поэтому читатель никогда не видит полузаписанный импорт.
+     * Строки, сохранённые до версий, становятся версией 1 источника по умолчанию при старте ({@code db/upgrade/V2}).
+     */
+    String CURRENT = "FROM Lesson l, ParsingMeta m WHERE m.keyName = l.sourceKey"
+            + " AND l.validFrom <= m.currentVersion AND (l.validTo IS NULL OR l.validTo > m.currentVersion)";
+
+    @Query("SELECT l " + CURRENT + " AND l.groupName = :groupName")
+    List<Lesson> findByGroupName(@Param("groupName") String groupName);
+
+    @Query("SELECT l " + CURRENT + " AND l.groupName IN :groupNames")
+    List<Lesson> findByGroupNameIn(@Param("groupNames") Collection<String> groupNames);
+
+    @Query("SELECT COUNT(l) " + CURRENT)
+    long countCurrent();
     
     void deleteAll();
 
-    @Query("SELECT DISTINCT l.groupName FROM Lesson l")
+    @Query("SELECT DISTINCT l.groupName " + CURRENT)
     List<String> findAllGroupNames();
+
+    @Query("SELECT DISTINCT l.groupName " + CURRENT + " AND l.sourceKey = :sourceKey")
+    List<String> findGroupNamesOfSource(@Param("sourceKey") String sourceKey);
     
-    @Query("SELECT l FROM Lesson l WHERE LOWER(l.teacher) LIKE LOWER(CONCAT('%', :query, '%'))")
+    @Query("SELECT l " + CURRENT + " AND LOWER(l.teacher) LIKE LOWER(CONCAT('%', :query, '%'))")
     List<Lesson> findByTeacher(@Param("query") String query);
-}
\ No newline at end of file
+
+    /**
+     * Открытые строки (ещё не закрытые ни одной версией) — от них импорт считает разницу.
+     */
+    @Query("SELECT l FROM Lesson l WHERE l.groupName IN :groupNames AND l.validTo IS NULL")
+    List<Lesson> findOpenByGroupNameIn(@Param("groupNames") Collection<String> groupNames);
+
+    /**
+     * Удаляет строки источника, которые не видны ни в одной его версии начиная с {@code version}.
+     * Строки без источника (сохранённые до появления поля) после закрытия никому не видны и удаляются тоже.
+     */
+    @Modifying
+    @Query("DELETE FROM Lesson l WHERE (l.sourceKey = :sourceKey OR l.sourceKey IS NULL)"
+            + " AND l.validTo IS NOT NULL AND l.validTo <= :version")
+    int deleteClosedUpTo(@Param("sourceKey") String sourceKey, @Param("version") long version);
+}
@@ -0,0 +1,54 @@
+package pro.kaleert.uwubot.repository;
+
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import pro.kaleert.uwubot.entity.OutboxMessage;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    /**
+     * Страница сообщений в статусе {@code status} после {@code afterId} в порядке записи (по индексу {@code idx_outbox_status_id}),
+     * кроме отложенных после временной ошибки на время позже {@code now}.
+     */
+    @Query("SELECT o FROM OutboxMessage o WHERE o.status = :status AND o.id > :afterId " +
+           "AND (o.nextAttemptAt IS NULL OR o.nextAttemptAt <= :now) ORDER BY o.id")
+    Slice<OutboxMessage> findDue(@Param("status") OutboxMessage.Status status, @Param("afterId") long afterId,
+                                 @Param("now") LocalDateTime now, Pageable pageable);
+
+    long countByStatus(OutboxMessage.Status status);
+
+    /**
+     * Отметка о доставке (или ошибке) одного сообщения — своей короткой транзакцией сразу после ответа Telegram.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxMessage o SET o.status = :status, o.processedAt = :processedAt, o.lastError = :error WHERE o.id = :id")
+    int mark(@Param("id") Long id, @Param("status") OutboxMessage.Status status,
+             @Param("processedAt") LocalDateTime processedAt, @Param("error") String error);
+
+    /**
+     * Откладывает сообщение после временной ошибки: оно остаётся ожидающим до {@code nextAttemptAt}.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxMessage o SET o.attempts = :attempts, o.nextAttemptAt = :nextAttemptAt, o.lastError = :error WHERE o.id = :id")
+    int postpone(@Param("id") Long id, @Param("attempts") int attempts,
+                 @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("error") String error);
+
+    /**
+     * Удаляет обработанные сообщения; у ожидающих {@code processedAt} пуст, их условие не затрагивает.
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM OutboxMessage o WHERE o.processedAt < :before")
+    int deleteProcessedBefore(@Param("before") LocalDateTime before);
+}
@@ -1,12 +1,62 @@
 package pro.kaleert.uwubot.repository;
 
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import pro.kaleert.uwubot.entity.Student;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface StudentRepository extends JpaRepository<Student, Long> {
     List<Student> findBySelectedGroup(String selectedGroup);
+
+    /**
+     * Подписчики группы с уведомлениями по возрастанию user id, после {@code afterUserId} (постранично по ключу).
+     * Ключ — первичный: chat id не уникален, и на границе страницы студенты с одинаковым чатом терялись бы.
+     * Читаются только поля из индекса {@code idx_student_recipients}, поэтому строки таблицы не читаются.
+     */
+    @Query("SELECT s.userId AS userId, s.chatId AS chatId, s.selectedGroup AS selectedGroup, s.showCodes AS showCodes"
+            + " FROM Student s"
+            + " WHERE s.selectedGroup = :group AND s.notificationsEnabled = true AND s.userId > :afterUserId"
+            + " ORDER BY s.userId")
+    Slice<Subscriber> findSubscribers(@Param("group") String group, @Param("afterUserId") long afterUserId,
+                                      Pageable pageable);
+
+    /**
+     * Все студенты с уведомлениями, в том числе без группы, — постранично по user id, как {@link #findSubscribers}.
+     */
+    @Query("SELECT s.userId AS userId, s.chatId AS chatId, s.selectedGroup AS selectedGroup, s.showCodes AS showCodes"
+            + " FROM Student s"
+            + " WHERE s.notificationsEnabled = true AND s.userId > :afterUserId"
+            + " ORDER BY s.userId")
+    Slice<Subscriber> findAllSubscribers(@Param("afterUserId") long afterUserId, Pageable pageable);
+
+    /**
+     * Отключает уведомления студента, которому Telegram больше не доставляет сообщения. Только его строку:
+     * чат (например, групповой) может быть общим у нескольких студентов.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Student s SET s.notificationsEnabled = false, s.inactiveSince = :since"
+            + " WHERE s.userId = :userId AND s.inactiveSince IS NULL")
+    int deactivate(@Param("userId") Long userId, @Param("since") LocalDateTime since);
+
+    long countByInactiveSinceIsNotNull();
+
+    interface Subscriber {
+        Long getUserId();
+
+        Long getChatId();
+
+        String getSelectedGroup();
+
+        Boolean getShowCodes();
+    }
 }
@@ -0,0 +1,40 @@
+package pro.kaleert.uwubot.service;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * История изменений файла в {@code ParsingMeta.changeHistory}: время импортов через запятую, старые в начале.
+ */
+public final class ChangeHistory {
+
+    /**
+     * Хватает на несколько недель публикаций, и строка помещается в колонку.
+     */
+    static final int MAX_ENTRIES = 32;
+
+    private ChangeHistory() {}
+
+    public static List<LocalDateTime> parse(String history) {
+        List<LocalDateTime> result = new ArrayList<>();
+        if (history == null || history.isBlank()) return result;
+        for (String item : history.split(",")) {
+            try {
+                result.add(LocalDateTime.parse(item.trim()));
+            } catch (DateTimeParseException ignored) {
+            }
+        }
+        return result;
+    }
+
+    public static String append(String history, LocalDateTime time) {
+        List<LocalDateTime> entries = parse(history);
+        entries.add(time.withNano(0));
+        if (entries.size() > MAX_ENTRIES) {
+            entries = entries.subList(entries.size() - MAX_ENTRIES, entries.size());
+        }
+        return String.join(",", entries.stream().map(LocalDateTime::toString).toList());
+    }
+}
@@ -0,0 +1,16 @@
+package pro.kaleert.uwubot.service;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Ответ {@link HttpFetcher}. При 304 тело пустое, а валидаторы — те, что были отправлены в запросе.
+ *
+ * @param charset кодировка из Content-Type, по умолчанию UTF-8
+ */
+public record FetchResult(boolean notModified, byte[] body, String etag, String lastModified, Charset charset) {
+
+    static FetchResult notModified(String etag, String lastModified) {
+        return new FetchResult(true, new byte[0], etag, lastModified, StandardCharsets.UTF_8);
+    }
+}
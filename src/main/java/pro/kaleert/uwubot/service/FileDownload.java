@@ -0,0 +1,57 @@
+package pro.kaleert.uwubot.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Файл источника, сохранённый во временный файл (скачанный {@link HttpFetcher} или скопированный из каталога).
+ * MD5 посчитан на лету при записи. При 304 файла нет ({@code path == null}). {@link #close()} удаляет временный файл.
+ */
+@Slf4j
+public record FileDownload(boolean notModified, Path path, String md5, String etag, String lastModified)
+        implements AutoCloseable {
+
+    public static FileDownload notModified(String etag, String lastModified) {
+        return new FileDownload(true, null, null, etag, lastModified);
+    }
+
+    /**
+     * Пишет поток во временный файл, по пути считая MD5; целиком в памяти содержимое не оказывается.
+     */
+    public static FileDownload store(InputStream stream, String etag, String lastModified) throws IOException {
+        MessageDigest md5;
+        try {
+            md5 = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        Path file = Files.createTempFile("schedule_", ".xlsx");
+        try (DigestInputStream in = new DigestInputStream(stream, md5)) {
+            Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return new FileDownload(false, file, HexFormat.of().formatHex(md5.digest()), etag, lastModified);
+    }
+
+    @Override
+    public void close() {
+        if (path == null) return;
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete temp file: {}", path, e);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package pro.kaleert.uwubot.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import pro.kaleert.uwubot.config.UwuBotConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Все скачивания бота (страница сайта, xlsx, файлы для /test) идут через общий {@link HttpClient}.
+ * Условные запросы: если сервер ответил 304, файл не скачивается повторно.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HttpFetcher {
+
+    private static final Pattern CHARSET_PATTERN = Pattern.compile("charset=\"?([\\w.:-]+)", Pattern.CASE_INSENSITIVE);
+
+    private final HttpClient httpClient;
+    private final UwuBotConfig properties;
+
+    /**
+     * Скачивание в память — для небольших ответов вроде страницы сайта.
+     *
+     * @param etag         ETag прошлого ответа или {@code null} — уходит в If-None-Match
+     * @param lastModified Last-Modified прошлого ответа или {@code null} — уходит в If-Modified-Since
+     */
+    public FetchResult fetch(String url, String etag, String lastModified) throws IOException, InterruptedException {
+        try (Body body = send(url, etag, lastModified)) {
+            if (body.notModified()) return FetchResult.notModified(etag, lastModified);
+            return new FetchResult(false, body.stream().readAllBytes(), body.etag(), body.lastModified(), body.charset());
+        }
+    }
+
+    /**
+     * Скачивание во временный файл: тело ответа идёт потоком на диск и по пути хешируется,
+     * целиком в памяти файл не оказывается. Временный файл удаляется при закрытии результата.
+     */
+    public FileDownload download(String url, String etag, String lastModified) throws IOException, InterruptedException {
+        try (Body body = send(url, etag, lastModified)) {
+            if (body.notModified()) return FileDownload.notModified(etag, lastModified);
+            return FileDownload.store(body.stream(), body.etag(), body.lastModified());
+        }
+    }
+
+    /**
+     * Безусловное скачивание во временный файл (для /test): http(s) и file://.
+     */
+    public FileDownload download(String url) throws IOException, InterruptedException {
+        return download(url, null, null);
+    }
+
+    private Body send(String url, String etag, String lastModified) throws IOException, InterruptedException {
+        URI uri = URI.create(url);
+        if ("file".equalsIgnoreCase(uri.getScheme())) {
+            return new Body(false, Files.newInputStream(Path.of(uri)), null, null, StandardCharsets.UTF_8);
+        }
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofMillis(properties.getHttp().getRequestTimeoutMs()))
+                .header("Accept-Encoding", "gzip")
+                .header("User-Agent", properties.getHttp().getUserAgent())
+                .GET();
+        if (etag != null && !etag.isEmpty()) request.header("If-None-Match", etag);
+        if (lastModified != null && !lastModified.isEmpty()) request.header("If-Modified-Since", lastModified);
+
+        HttpResponse<InputStream> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        int status = response.statusCode();
+        if (status == 304) {
+            log.debug("Not modified: {}", url);
+            response.body().close();
+            return new Body(true, InputStream.nullInputStream(), etag, lastModified, StandardCharsets.UTF_8);
+        }
+        if (status >= 400) {
+            response.body().close();
+            throw new IOException("HTTP " + status + " for " + url);
+        }
+        return new Body(false, decode(response),
+                response.headers().firstValue("ETag").orElse(null),
+                response.headers().firstValue("Last-Modified").orElse(null),
+                charsetOf(response));
+    }
+
+    private InputStream decode(HttpResponse<InputStream> response) throws IOException {
+        boolean gzip = response.headers().firstValue("Content-Encoding")
+                .map(encoding -> encoding.equalsIgnoreCase("gzip"))
+                .orElse(false);
+        return gzip ? new GZIPInputStream(response.body()) : response.body();
+    }
+
+    private Charset charsetOf(HttpResponse<?> response) {
+        String contentType = response.headers().firstValue("Content-Type").orElse("");
+        Matcher m = CHARSET_PATTERN.matcher(contentType);
+        if (m.find()) {
+            try {
+                return Charset.forName(m.group(1));
+            } catch (Exception e) {
+                log.debug("Unknown charset '{}' for {}", m.group(1), response.uri());
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    /**
+     * Ссылки на сайте бывают с пробелами и кириллицей как есть или уже закодированные:
+     * путь декодируется и кодируется заново, чтобы запрос ушёл в одном виде.
+     */
+    public static String encodeUrl(String url) throws MalformedURLException, URISyntaxException {
+        URL rawUrl = new URL(url);
+        // Сначала декодируем (убираем %20), чтобы URI мог закодировать чисто
+        String decodedPath = URLDecoder.decode(rawUrl.getPath(), StandardCharsets.UTF_8);
+        return new URI(
+                rawUrl.getProtocol(),
+                rawUrl.getUserInfo(),
+                rawUrl.getHost(),
+                rawUrl.getPort(),
+                decodedPath,
+                rawUrl.getQuery(),
+                null
+        ).toASCIIString();
+    }
+
+    private record Body(boolean notModified, InputStream stream, String etag, String lastModified, Charset charset)
+            implements AutoCloseable {
+        @Override
+        public void close() throws IOException {
+            stream.close();
+        }
+    }
+}
@@ -4,6 +4,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import pro.kaleert.uwubot.command.RaspCommand;
 import pro.kaleert.uwubot.entity.Lesson;
+import pro.kaleert.uwubot.entity.Student;
 import pro.kaleert.uwubot.entity.SubjectAlias;
 import pro.kaleert.uwubot.repository.SubjectAliasRepository;
 
@@ -19,27 +20,27 @@ public class ScheduleDiffService {
 
     private final SubjectAliasRepository aliasRepository;
 
-    public String generateDiffReport(Long userId, String groupName, List<Lesson> oldLessons, List<Lesson> newLessons, LocalDate weekStart) {
-        if (oldLessons.isEmpty()) return "📅 <b>Новое расписание для " + groupName + "</b>\n\nПроверь /rasp";
+    /**
+     * Отчёт в том виде, в котором его получит {@code recipient} в рассылке.
+     */
+    public String generateDiffReport(Student recipient, String groupName, List<Lesson> oldLessons, List<Lesson> newLessons, LocalDate weekStart) {
+        Map<String, String> aliases = toAliasMap(aliasRepository.findAllByUserId(recipient.getUserId()));
+        return generateDiffReport(aliases, recipient.isShowCodes(), groupName, oldLessons, newLessons, weekStart);
+    }
 
-        Map<String, String> aliases = (userId != null) 
-            ? aliasRepository.findAllByUserId(userId).stream().collect(Collectors.toMap(a -> a.getOriginalName().toLowerCase(), SubjectAlias::getAliasName))
-            : Collections.emptyMap();
+    /**
+     * Отчёт об изменениях в виде, в котором получатель видит расписание: с его сокращениями и настройкой кодов.
+     *
+     * @return {@code null}, если ни один день не изменился
+     */
+    public String generateDiffReport(Map<String, String> aliases, boolean showCodes, String groupName,
+                                     List<Lesson> oldLessons, List<Lesson> newLessons, LocalDate weekStart) {
+        if (oldLessons.isEmpty()) return "📅 <b>Новое расписание для " + groupName + "</b>\n\nПроверь /rasp";
 
         Map<DayOfWeek, List<Lesson>> oldByDay = groupLessons(oldLessons);
         Map<DayOfWeek, List<Lesson>> newByDay = groupLessons(newLessons);
 
-        Set<DayOfWeek> changedDays = new TreeSet<>();
-        Set<DayOfWeek> allDays = new HashSet<>();
-        allDays.addAll(oldByDay.keySet());
-        allDays.addAll(newByDay.keySet());
-
-        for (DayOfWeek day : allDays) {
-            List<Lesson> dayOld = oldByDay.getOrDefault(day, Collections.emptyList());
-            List<Lesson> dayNew = newByDay.getOrDefault(day, Collections.emptyList());
-            if (!dayOld.equals(dayNew)) changedDays.add(day);
-        }
-
+        Set<DayOfWeek> changedDays = changedDays(oldByDay, newByDay);
         if (changedDays.isEmpty()) return null;
 
         StringBuilder sb = new StringBuilder("<b>🔔 Изменения в расписании " + groupName + "</b>\n\n");
@@ -50,57 +51,83 @@ public class ScheduleDiffService {
             sb.append(formatDayHeader(day, weekStart)).append("\n"); // Передаем дату
             
             if (dayOld.isEmpty()) {
-                sb.append(formatDayStandard(dayNew, aliases)).append("\n");
+                sb.append(formatDayStandard(dayNew, aliases, showCodes)).append("\n");
             } else {
-                sb.append(formatDayDiff(dayOld, dayNew, aliases)).append("\n");
+                sb.append(formatDayDiff(dayOld, dayNew, aliases, showCodes)).append("\n");
             }
         }
         return sb.toString();
     }
 
-    private String formatDayDiff(List<Lesson> oldList, List<Lesson> newList, Map<String, String> aliases) {
+    /**
+     * Изменился ли хоть один день; текст отчёта при этом не строится.
+     */
+    public boolean hasChanges(List<Lesson> oldLessons, List<Lesson> newLessons) {
+        return oldLessons.isEmpty() || !changedDays(groupLessons(oldLessons), groupLessons(newLessons)).isEmpty();
+    }
+
+    /**
+     * Сокращения пользователя в виде, который ожидает форматирование: ключ — название в нижнем регистре.
+     */
+    public static Map<String, String> toAliasMap(Collection<SubjectAlias> aliases) {
+        return aliases.stream().collect(Collectors.toMap(
+                a -> a.getOriginalName().toLowerCase(), SubjectAlias::getAliasName, (first, second) -> first));
+    }
+
+    private Set<DayOfWeek> changedDays(Map<DayOfWeek, List<Lesson>> oldByDay, Map<DayOfWeek, List<Lesson>> newByDay) {
+        Set<DayOfWeek> changedDays = new TreeSet<>();
+        Set<DayOfWeek> allDays = new HashSet<>();
+        allDays.addAll(oldByDay.keySet());
+        allDays.addAll(newByDay.keySet());
+
+        for (DayOfWeek day : allDays) {
+            List<Lesson> dayOld = oldByDay.getOrDefault(day, Collections.emptyList());
+            List<Lesson> dayNew = newByDay.getOrDefault(day, Collections.emptyList());
+            if (!dayOld.equals(dayNew)) changedDays.add(day);
+        }
+        return changedDays;
+    }
+
+    private String formatDayDiff(List<Lesson> oldList, List<Lesson> newList, Map<String, String> aliases, boolean showCodes) {
         StringBuilder sb = new StringBuilder();
         int maxOld = oldList.stream().mapToInt(Lesson::getLessonNumber).max().orElse(0);
         int maxNew = newList.stream().mapToInt(Lesson::getLessonNumber).max().orElse(0);
         int limit = Math.max(5, Math.max(maxOld, maxNew));
-        Map<Integer, String> oldMap = oldList.stream().collect(Collectors.toMap(Lesson::getLessonNumber, Lesson::getRawText));
-        Map<Integer, String> newMap = newList.stream().collect(Collectors.toMap(Lesson::getLessonNumber, Lesson::getRawText));
+        Map<Integer, Lesson> oldMap = oldList.stream().collect(Collectors.toMap(Lesson::getLessonNumber, l -> l));
+        Map<Integer, Lesson> newMap = newList.stream().collect(Collectors.toMap(Lesson::getLessonNumber, l -> l));
 
         for (int i = 1; i <= limit; i++) {
-            String oldText = oldMap.get(i);
-            String newText = newMap.get(i);
-            if (oldText == null && newText == null) {
+            Lesson oldLesson = oldMap.get(i);
+            Lesson newLesson = newMap.get(i);
+            if (oldLesson == null && newLesson == null) {
                 if (i <= 5) sb.append(i).append(" | —\n");
                 continue;
             }
             String line;
-            if (Objects.equals(oldText, newText)) {
-                line = formatLine(newText, aliases);
-            } else if (newText == null) {
+            if (oldLesson != null && newLesson != null && Objects.equals(oldLesson.getRawText(), newLesson.getRawText())) {
+                line = formatLine(newLesson, aliases, showCodes);
+            } else if (newLesson == null) {
                 line = "~~";
-            } else if (oldText == null) {
-                line = "<i>" + formatLine(newText, aliases) + "</i>";
             } else {
-                line = "<i>" + formatLine(newText, aliases) + "</i>";
+                line = "<i>" + formatLine(newLesson, aliases, showCodes) + "</i>";
             }
             sb.append(i).append(" | ").append(line).append("\n");
         }
         return sb.toString();
     }
 
-    private String formatDayStandard(List<Lesson> lessons, Map<String, String> aliases) {
+    private String formatDayStandard(List<Lesson> lessons, Map<String, String> aliases, boolean showCodes) {
         StringBuilder sb = new StringBuilder();
         int max = lessons.stream().mapToInt(Lesson::getLessonNumber).max().orElse(5);
-        Map<Integer, String> map = lessons.stream().collect(Collectors.toMap(Lesson::getLessonNumber, Lesson::getRawText));
+        Map<Integer, Lesson> map = lessons.stream().collect(Collectors.toMap(Lesson::getLessonNumber, l -> l));
         for (int i = 1; i <= Math.max(5, max); i++) {
-            sb.append(i).append(" | ").append(formatLine(map.getOrDefault(i, "—"), aliases)).append("\n");
+            sb.append(i).append(" | ").append(formatLine(map.get(i), aliases, showCodes)).append("\n");
         }
         return sb.toString();
     }
     
-    private String formatLine(String raw, Map<String, String> aliases) {
-        if (raw == null) return "—";
-        return RaspCommand.formatLessonLine(raw, aliases, true);
+    private String formatLine(Lesson lesson, Map<String, String> aliases, boolean showCodes) {
+        return RaspCommand.formatLesson(lesson, aliases, showCodes);
     }
     
     private Map<DayOfWeek, List<Lesson>> groupLessons(List<Lesson> lessons) {
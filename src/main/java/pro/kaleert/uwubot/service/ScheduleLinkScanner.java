@@ -0,0 +1,93 @@
+package pro.kaleert.uwubot.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
+import org.jsoup.parser.StreamParser;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Поиск ссылки на файл расписания потоковым парсером Jsoup: дерево страницы не строится целиком,
+ * каждый разобранный элемент сразу отцепляется от дерева, а лучшая ссылка выбирается по ходу чтения.
+ */
+@Slf4j
+@Component
+public class ScheduleLinkScanner {
+
+    private static final Pattern DATE_PATTERN = Pattern.compile("(\\d{2})[._](\\d{2})[._](\\d{4})");
+
+    /**
+     * @return лучшая ссылка (самое новое "расписание" с датой, иначе последняя xlsx-ссылка) и отпечаток
+     *         списка всех xlsx-ссылок страницы; {@code url == null}, если ссылок нет
+     */
+    public LinkScan scan(InputStream html, Charset charset, String baseUrl) throws IOException {
+        StringBuilder candidates = new StringBuilder();
+        Element best = null;
+        LocalDate bestDate = LocalDate.MIN;
+        Element last = null;
+
+        try (StreamParser streamer = new StreamParser(Parser.htmlParser())) {
+            streamer.parse(new BufferedReader(new InputStreamReader(html, charset)), baseUrl);
+            Iterator<Element> elements = streamer.iterator();
+            while (elements.hasNext()) {
+                Element element = elements.next();
+                if (element.nameIs("a")) {
+                    String href = element.attr("href");
+                    if (href.toLowerCase().endsWith(".xlsx")) {
+                        candidates.append(href).append('\n');
+                        last = element;
+                        // Пока элемент в дереве, относительная ссылка разрешается от адреса самой страницы
+                        String absolute = element.absUrl("href");
+                        if (!absolute.isEmpty()) element.attr("href", absolute);
+
+                        LocalDate date = parseScheduleDate(element.text() + " " + href);
+                        if (date != null && date.isAfter(bestDate)) {
+                            bestDate = date;
+                            best = element;
+                        }
+                    }
+                }
+                // Элемент разобран целиком и уже прочитан — отцепляем его, чтобы дерево страницы не росло
+                element.remove();
+            }
+        }
+
+        Element chosen = best != null ? best : last;
+        if (chosen == null) return new LinkScan(null, null, null);
+
+        String url = chosen.attr("href");
+        String linksHash = DigestUtils.md5DigestAsHex(candidates.toString().getBytes(StandardCharsets.UTF_8));
+        return new LinkScan(url, chosen.text(), linksHash);
+    }
+
+    private LocalDate parseScheduleDate(String raw) {
+        if (!raw.toLowerCase().contains("расписание")) return null;
+        Matcher m = DATE_PATTERN.matcher(raw);
+        if (!m.find()) return null;
+        try {
+            int day = Integer.parseInt(m.group(1));
+            int month = Integer.parseInt(m.group(2));
+            int year = Integer.parseInt(m.group(3));
+            return LocalDate.of(year, month, day);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param linksHash отпечаток всех xlsx-ссылок страницы в порядке появления
+     */
+    public record LinkScan(String url, String text, String linksHash) {}
+}
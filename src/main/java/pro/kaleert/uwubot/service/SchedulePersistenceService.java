@@ -0,0 +1,130 @@
+package pro.kaleert.uwubot.service;
+
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import pro.kaleert.uwubot.config.UwuBotConfig;
+import pro.kaleert.uwubot.entity.GroupFingerprint;
+import pro.kaleert.uwubot.entity.Lesson;
+import pro.kaleert.uwubot.entity.ParsingMeta;
+import pro.kaleert.uwubot.repository.GroupFingerprintRepository;
+import pro.kaleert.uwubot.repository.LessonRepository;
+import pro.kaleert.uwubot.repository.ParsingMetaRepository;
+import pro.kaleert.uwubot.service.notification.Broadcast;
+import pro.kaleert.uwubot.service.notification.NotificationOutbox;
+
+import java.time.DayOfWeek;
+import java.util.*;
+
+/**
+ * Импорт файла как новой версии расписания. Строка урока определяется ключом (группа, день, номер пары);
+ * строки не перезаписываются, а закрываются ({@code validTo}) и добавляются новые ({@code validFrom}),
+ * поэтому до переключения {@link ParsingMeta#getCurrentVersion()} читатели видят прежнюю версию целиком.
+ * Вставки и закрытия Hibernate отправляет JDBC-батчами (см. {@code JpaBatchConfig}).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SchedulePersistenceService {
+
+    private final LessonRepository lessonRepository;
+    private final GroupFingerprintRepository fingerprintRepository;
+    private final ParsingMetaRepository metaRepository;
+    private final NotificationOutbox outbox;
+    private final UwuBotConfig properties;
+
+    /**
+     * Записывает новую версию и в той же транзакции переключает на неё указатель, сохраняет метаданные файла
+     * и ставит уведомления в outbox: они либо сохраняются вместе с расписанием, либо не сохраняются вовсе.
+     *
+     * @param groups        группы, чьи уроки целиком заменяются на {@code newLessons} (изменившиеся и пропавшие из файла)
+     * @param newLessons    новые уроки этих групп
+     * @param fingerprints  новые отпечатки разобранных групп
+     * @param removedGroups группы, пропавшие из файла: их отпечатки удаляются
+     * @param broadcast     уведомления об этом импорте
+     */
+    @Transactional
+    public WriteStats importVersion(ParsingMeta meta, Collection<String> groups, List<Lesson> newLessons,
+                                    Collection<GroupFingerprint> fingerprints, Collection<String> removedGroups,
+                                    Broadcast broadcast) {
+        long current = meta.getCurrentVersion() != null ? meta.getCurrentVersion() : 0L;
+        long version = current + 1;
+
+        Map<LessonKey, Lesson> existing = new HashMap<>();
+        List<Lesson> toClose = new ArrayList<>();
+        if (!groups.isEmpty()) {
+            for (Lesson lesson : lessonRepository.findOpenByGroupNameIn(groups)) {
+                // Дубликаты ключа (если когда-то попали в таблицу) закрываем
+                if (existing.putIfAbsent(LessonKey.of(lesson), lesson) != null) toClose.add(lesson);
+            }
+        }
+
+        List<Lesson> toInsert = new ArrayList<>();
+        int updated = 0;
+        int unchanged = 0;
+        for (Lesson lesson : newLessons) {
+            Lesson open = existing.remove(LessonKey.of(lesson));
+            if (open != null && sameContent(open, lesson)) {
+                unchanged++;
+                continue;
+            }
+            if (open != null) {
+                toClose.add(open);
+                updated++;
+            }
+            lesson.setValidFrom(version);
+            lesson.setValidTo(null);
+            toInsert.add(lesson);
+        }
+        int deleted = existing.size();
+        toClose.addAll(existing.values());
+
+        fingerprintRepository.deleteAllById(removedGroups);
+        fingerprintRepository.saveAll(fingerprints);
+        // Звонки могли измениться и без изменения строк уроков
+        int queued = broadcast.isEmpty() ? 0 : outbox.enqueue(meta.getKeyName(), broadcast);
+
+        if (toInsert.isEmpty() && toClose.isEmpty() && meta.getCurrentVersion() != null) {
+            // Строки не изменились — новая версия не нужна
+            metaRepository.save(meta);
+            log.info("Schedule version {} of '{}' kept: no lesson rows changed", current, meta.getKeyName());
+            return new WriteStats(current, 0, 0, 0, unchanged, queued);
+        }
+
+        // Управляемые сущности: UPDATE valid_to уйдут при flush одним батчем
+        toClose.forEach(lesson -> lesson.setValidTo(version));
+        lessonRepository.saveAll(toInsert);
+        meta.setCurrentVersion(version);
+        metaRepository.save(meta);
+
+        // Строки, закрытые до самой старой хранимой версии, больше никому не видны
+        int retained = Math.max(1, properties.getStorage().getRetainedVersions());
+        int collected = lessonRepository.deleteClosedUpTo(meta.getKeyName(), version - retained + 1);
+
+        WriteStats stats = new WriteStats(version, toInsert.size() - updated, updated, deleted, unchanged, queued);
+        log.info("Schedule version {} of '{}' persisted for {} groups: {} (old rows collected: {})",
+                version, meta.getKeyName(), groups.size(), stats, collected);
+        return stats;
+    }
+
+    private boolean sameContent(Lesson a, Lesson b) {
+        // Строки без источника (до его появления) переписываются, иначе их не увидит ни один читатель
+        return Objects.equals(a.getSourceKey(), b.getSourceKey())
+                && Objects.equals(a.getRawText(), b.getRawText())
+                && Objects.equals(a.getTeacher(), b.getTeacher())
+                && Objects.equals(a.getFirst(), b.getFirst())
+                && Objects.equals(a.getSecond(), b.getSecond());
+    }
+
+    private record LessonKey(String groupName, DayOfWeek day, int lessonNumber) {
+        static LessonKey of(Lesson lesson) {
+            return new LessonKey(lesson.getGroupName(), lesson.getDayOfWeek(), lesson.getLessonNumber());
+        }
+    }
+
+    /**
+     * @param queued сообщений поставлено в outbox
+     */
+    public record WriteStats(long version, int inserted, int updated, int deleted, int unchanged, int queued) {}
+}
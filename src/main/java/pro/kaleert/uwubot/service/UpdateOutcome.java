@@ -0,0 +1,19 @@
+package pro.kaleert.uwubot.service;
+
+/**
+ * Итог одного прохода обновления — по нему {@link UpdateScheduler} выбирает интервал до следующей проверки.
+ */
+public enum UpdateOutcome {
+    /**
+     * Скачан и импортирован новый файл.
+     */
+    CHANGED,
+    /**
+     * Страница или файл не изменились.
+     */
+    UNCHANGED,
+    /**
+     * Сайт недоступен, ссылка не найдена или файл не разобрался.
+     */
+    FAILED
+}
@@ -0,0 +1,201 @@
+package pro.kaleert.uwubot.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import pro.kaleert.uwubot.config.UwuBotConfig;
+import pro.kaleert.uwubot.entity.ParsingMeta;
+import pro.kaleert.uwubot.repository.ParsingMetaRepository;
+import pro.kaleert.uwubot.service.source.ScheduleSource;
+import pro.kaleert.uwubot.service.source.ScheduleSourceRegistry;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Адаптивное расписание проверок сайта вместо фиксированного {@code fixedRate}.
+ * <p>
+ * По истории изменений ({@link ChangeHistory}) находятся окна публикации — моменты недели
+ * (день + время), когда файл уже менялся. В окне сайт проверяется с минимальным интервалом,
+ * вне окна интервал удваивается после каждой проверки без изменений, но не выходит за
+ * максимум и не перескакивает начало ближайшего окна.
+ * <p>
+ * У каждого источника своя история и свой план. Планировщик только отдаёт проверку в виртуальный поток,
+ * поэтому медленный или недоступный источник не задерживает проверки остальных.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UpdateScheduler {
+
+    private static final long MINUTES_PER_WEEK = 7 * 24 * 60;
+
+    private final UpdateService updateService;
+    private final ParsingMetaRepository metaRepository;
+    private final ScheduleSourceRegistry sourceRegistry;
+    private final UwuBotConfig properties;
+    private final TaskScheduler taskScheduler;
+
+    private final Map<String, SourceState> states = new ConcurrentHashMap<>();
+    private final ExecutorService checkExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Текущие планы по ключам источников (в порядке конфига); источника нет, пока не запланирована первая проверка.
+     */
+    public Map<String, Plan> currentPlans() {
+        Map<String, Plan> plans = new LinkedHashMap<>();
+        for (ScheduleSource source : sourceRegistry.sources()) {
+            SourceState state = states.get(source.key());
+            if (state != null && state.plan != null) plans.put(source.key(), state.plan);
+        }
+        return plans;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        for (ScheduleSource source : sourceRegistry.sources()) {
+            SourceState state = new SourceState();
+            state.plan = new Plan(minInterval(), LocalDateTime.now(), "запуск");
+            states.put(source.key(), state);
+            schedule(source, state);
+            // Источники с уведомлениями (каталог) импортируют новый файл сразу; опрос остаётся страховкой.
+            // План не трогаем — параллельные запуски склеит single-flight в UpdateService
+            source.watch(() -> checkExecutor.execute(() -> updateService.checkUpdates(source)));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        checkExecutor.shutdownNow();
+    }
+
+    private void schedule(ScheduleSource source, SourceState state) {
+        taskScheduler.schedule(() -> checkExecutor.execute(() -> tick(source, state)),
+                state.plan.nextCheck().atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private void tick(ScheduleSource source, SourceState state) {
+        UpdateOutcome outcome = UpdateOutcome.FAILED;
+        try {
+            outcome = updateService.checkUpdates(source);
+        } catch (Exception e) {
+            log.error("Scheduled update of '{}' failed", source.key(), e);
+        } finally {
+            // Следующая проверка планируется всегда, иначе одна ошибка остановила бы опрос
+            try {
+                List<LocalDateTime> history = metaRepository.findById(source.key())
+                        .map(ParsingMeta::getChangeHistory)
+                        .map(ChangeHistory::parse)
+                        .orElse(List.of());
+                state.plan = plan(state, outcome, history, LocalDateTime.now());
+            } catch (Exception e) {
+                log.error("Failed to plan next check of '{}'", source.key(), e);
+                state.plan = new Plan(minInterval(), LocalDateTime.now().plus(minInterval()), "ошибка планирования");
+            }
+            log.debug("Next check of '{}' at {} in {} ({})",
+                    source.key(), state.plan.nextCheck(), state.plan.interval(), state.plan.reason());
+            schedule(source, state);
+        }
+    }
+
+    Plan plan(SourceState state, UpdateOutcome outcome, List<LocalDateTime> history, LocalDateTime now) {
+        Duration min = minInterval();
+        Duration max = maxInterval();
+
+        if (outcome == UpdateOutcome.CHANGED) {
+            state.idleStreak = 0;
+            // После публикации часто выкладывают правки — сразу после изменения проверяем часто
+            return new Plan(min, now.plus(min), "файл только что изменился");
+        }
+        if (outcome == UpdateOutcome.FAILED) {
+            return new Plan(min, now.plus(min), "прошлая проверка не удалась");
+        }
+
+        int idleStreak = ++state.idleStreak;
+        long untilWindow = minutesUntilWindow(history, now);
+        if (untilWindow == 0) {
+            return new Plan(min, now.plus(min), "окно публикации");
+        }
+
+        // min * 2^streak с защитой от переполнения сдвига
+        int shift = Math.min(idleStreak, 30);
+        Duration backoff = min.multipliedBy(1L << shift);
+        if (backoff.compareTo(max) > 0) backoff = max;
+        String reason = "без изменений " + idleStreak + " пров. подряд";
+
+        if (untilWindow > 0) {
+            Duration toWindow = Duration.ofMinutes(untilWindow);
+            if (toWindow.compareTo(backoff) < 0) {
+                Duration interval = toWindow.compareTo(min) < 0 ? min : toWindow;
+                return new Plan(interval, now.plus(interval), "скоро окно публикации");
+            }
+        }
+        return new Plan(backoff, now.plus(backoff), reason);
+    }
+
+    /**
+     * @return 0, если {@code now} внутри окна публикации; минуты до начала ближайшего окна;
+     *         -1, если история пуста
+     */
+    long minutesUntilWindow(List<LocalDateTime> history, LocalDateTime now) {
+        if (history.isEmpty()) return -1;
+        long window = Math.max(0, properties.getScheduler().getPublicationWindow() / 60_000L);
+        long nowMinute = minuteOfWeek(now);
+
+        long best = Long.MAX_VALUE;
+        for (LocalDateTime change : history) {
+            long changeMinute = minuteOfWeek(change);
+            long distance = Math.floorMod(nowMinute - changeMinute, MINUTES_PER_WEEK);
+            distance = Math.min(distance, MINUTES_PER_WEEK - distance);
+            if (distance <= window) return 0;
+            // Окно начинается за window минут до момента прошлого изменения
+            long untilStart = Math.floorMod(changeMinute - window - nowMinute, MINUTES_PER_WEEK);
+            best = Math.min(best, untilStart);
+        }
+        return best;
+    }
+
+    private static long minuteOfWeek(LocalDateTime time) {
+        return (time.getDayOfWeek().getValue() - 1) * 24L * 60 + time.getHour() * 60L + time.getMinute();
+    }
+
+    private Duration minInterval() {
+        return Duration.ofMillis(Math.max(1_000L, properties.getScheduler().getCheckInterval()));
+    }
+
+    private Duration maxInterval() {
+        return Duration.ofMillis(Math.max(minInterval().toMillis(), properties.getScheduler().getMaxInterval()));
+    }
+
+    /**
+     * Состояние опроса одного источника; меняется только в его собственной проверке.
+     */
+    static final class SourceState {
+        private volatile Plan plan;
+        // Проверок без изменений подряд
+        private int idleStreak;
+    }
+
+    /**
+     * @param interval  выбранный интервал
+     * @param nextCheck время следующей проверки
+     * @param reason    почему выбран такой интервал (для /stats)
+     */
+    public record Plan(Duration interval, LocalDateTime nextCheck, String reason) {
+        public Plan {
+            nextCheck = nextCheck.truncatedTo(ChronoUnit.SECONDS);
+        }
+    }
+}
@@ -1,38 +1,36 @@
 package pro.kaleert.uwubot.service;
 
-import com.kaleert.nyagram.client.NyagramClient;
-import com.kaleert.nyagram.api.methods.send.SendMessage;
 import pro.kaleert.uwubot.config.UwuBotConfig;
-import jakarta.transaction.Transactional;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.util.DigestUtils;
+import pro.kaleert.uwubot.entity.GroupFingerprint;
 import pro.kaleert.uwubot.entity.Lesson;
 import pro.kaleert.uwubot.entity.ParsingMeta;
-import pro.kaleert.uwubot.entity.Student;
+import pro.kaleert.uwubot.repository.GroupFingerprintRepository;
 import pro.kaleert.uwubot.repository.LessonRepository;
 import pro.kaleert.uwubot.repository.ParsingMetaRepository;
-import pro.kaleert.uwubot.repository.StudentRepository;
+import pro.kaleert.uwubot.service.notification.Broadcast;
+import pro.kaleert.uwubot.service.notification.NotificationOutbox;
+import pro.kaleert.uwubot.service.notification.OutgoingMessage;
 import pro.kaleert.uwubot.service.parser.ScheduleBundle;
 import pro.kaleert.uwubot.service.parser.ScheduleParserService;
+import pro.kaleert.uwubot.service.source.ScheduleSource;
+import pro.kaleert.uwubot.service.source.ScheduleSourceRegistry;
+import pro.kaleert.uwubot.service.source.SourceFetch;
 
-import java.io.ByteArrayInputStream;
-import java.io.InputStream;
-import java.net.URI;
-import java.net.URL;
-import java.net.URLDecoder;
-import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.function.Consumer;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -42,243 +40,394 @@ public class UpdateService {
 
     private final ParsingMetaRepository metaRepository;
     private final LessonRepository lessonRepository;
-    private final StudentRepository studentRepository;
+    private final SchedulePersistenceService persistenceService;
+    private final GroupFingerprintRepository fingerprintRepository;
     private final ScheduleParserService parserService;
     private final ScheduleDiffService diffService;
-    private final NyagramClient botClient;
+    private final NotificationOutbox outbox;
     private final UwuBotConfig properties;
+    private final HttpFetcher httpFetcher;
+    private final ScheduleSourceRegistry sourceRegistry;
 
-    private static final String META_KEY = "schedule_file";
-    private static final int MAX_RETRIES = 3;
+    private final ConcurrentMap<String, InFlightUpdate> inFlight = new ConcurrentHashMap<>();
+    // Источники проверяются независимо: медленный сайт занимает только свой виртуальный поток
+    private final ExecutorService sourceExecutor = Executors.newVirtualThreadPerTaskExecutor();
 
-    @Scheduled(fixedRateString = "${nyagram.scheduler.check-interval}")
-    public void checkUpdates() {
-        forceUpdate(status -> log.debug("Auto-Update: {}", status), false);
+    @PreDestroy
+    public void shutdown() {
+        sourceExecutor.shutdownNow();
     }
 
-    public void forceUpdate(Consumer<String> statusCallback) {
-        forceUpdate(statusCallback, true);
+    /**
+     * Плановая проверка источника; когда её вызывать, решает {@link UpdateScheduler}.
+     */
+    public UpdateOutcome checkUpdates(ScheduleSource source) {
+        return forceUpdate(source, status -> log.debug("Auto-Update [{}]: {}", source.key(), status), false);
     }
 
-    public void forceUpdate(Consumer<String> statusCallback, boolean forceDownload) {
-        statusCallback.accept("🔍 Поиск ссылки на сайте...");
-        String fileUrl = null;
-        
-        for (int i = 0; i < MAX_RETRIES; i++) {
-            try {
-                Document doc = Jsoup.connect(properties.getScheduleUrl()).timeout(10000).get();
-                org.jsoup.select.Elements links = doc.select("a[href$=.xlsx]");
-                Element bestLink = findBestLink(links);
-                
-                if (bestLink != null) {
-                    fileUrl = bestLink.attr("href");
-                    if (!fileUrl.startsWith("http")) fileUrl = "https://edu.tatar.ru" + fileUrl;
-                    log.debug("Выбрана ссылка: {} (Текст: {})", fileUrl, bestLink.text());
-                    break;
-                }
-                Thread.sleep(2000);
-            } catch (Exception e) {
-                if (i == MAX_RETRIES - 1) statusCallback.accept("❌ Ошибка сайта: " + e.getMessage());
-            }
+    public UpdateOutcome forceUpdate(Consumer<String> statusCallback) {
+        return forceUpdateAsync(statusCallback).join();
+    }
+
+    /**
+     * Синхронное обновление источника в потоке вызывающего; если оно уже идёт, ждёт его окончания.
+     */
+    public UpdateOutcome forceUpdate(ScheduleSource source, Consumer<String> statusCallback, boolean forceDownload) {
+        return submit(source, statusCallback, forceDownload, Runnable::run).join();
+    }
+
+    /**
+     * Асинхронное обновление всех источников для команд: каждый идёт в своём виртуальном потоке,
+     * а присоединение к уже идущему обновлению не занимает поток. Статусы помечаются ключом источника,
+     * если источников несколько.
+     */
+    public CompletableFuture<UpdateOutcome> forceUpdateAsync(Consumer<String> statusCallback) {
+        List<ScheduleSource> sources = sourceRegistry.sources();
+        List<CompletableFuture<UpdateOutcome>> runs = new ArrayList<>();
+        for (ScheduleSource source : sources) {
+            Consumer<String> callback = sources.size() == 1
+                    ? statusCallback
+                    : status -> statusCallback.accept("[" + source.key() + "] " + status);
+            runs.add(submit(source, callback, true, sourceExecutor));
         }
+        return CompletableFuture.allOf(runs.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> combine(runs.stream().map(CompletableFuture::join).toList()));
+    }
+
+    /**
+     * Асинхронное обновление только источника, которому принадлежит группа ({@link ScheduleSourceRegistry#sourceOfGroup}):
+     * поиск одной группы не должен перекачивать остальные файлы.
+     */
+    public CompletableFuture<UpdateOutcome> forceUpdateAsync(String groupName, Consumer<String> statusCallback) {
+        return submit(sourceRegistry.sourceOfGroup(groupName), statusCallback, true, sourceExecutor);
+    }
+
+    private static UpdateOutcome combine(List<UpdateOutcome> outcomes) {
+        if (outcomes.contains(UpdateOutcome.CHANGED)) return UpdateOutcome.CHANGED;
+        if (outcomes.contains(UpdateOutcome.UNCHANGED)) return UpdateOutcome.UNCHANGED;
+        return UpdateOutcome.FAILED;
+    }
 
-        if (fileUrl == null) {
-            statusCallback.accept("❌ Подходящая ссылка не найдена.");
-            return;
+    /**
+     * Single-flight: по каждому источнику одновременно идёт не больше одного обновления. Остальные вызывающие
+     * подписываются на его статусы (сначала получают текущий) и на его завершение, а не запускают своё
+     * скачивание и парсинг. Присоединившийся с {@code forceDownload} получает результат идущего обычного обновления.
+     */
+    private CompletableFuture<UpdateOutcome> submit(ScheduleSource source, Consumer<String> statusCallback,
+                                                    boolean forceDownload, Executor executor) {
+        String key = source.key();
+        InFlightUpdate run = new InFlightUpdate(sourceExecutor);
+        InFlightUpdate existing = inFlight.putIfAbsent(key, run);
+        if (existing != null) {
+            log.debug("Update already in progress, attaching to it");
+            return existing.attach(statusCallback);
         }
 
+        run.attach(statusCallback);
         try {
-            ParsingMeta meta = metaRepository.findById(META_KEY)
-                    .orElse(new ParsingMeta(META_KEY, "", "", "", null, "", null, null));
-            processNewFile(fileUrl, meta, statusCallback, forceDownload);
-        } catch (Exception e) {
-            log.error("Update failed", e);
-            statusCallback.accept("❌ Ошибка: " + e.getMessage());
+            executor.execute(() -> {
+                UpdateOutcome outcome = UpdateOutcome.FAILED;
+                try {
+                    outcome = runUpdate(source, run::publish, forceDownload);
+                } catch (Exception e) {
+                    log.error("Update of '{}' failed", key, e);
+                    run.publish("❌ Ошибка: " + e.getMessage());
+                } finally {
+                    // Сначала освобождаем ключ: пришедшие после завершения начнут новое обновление
+                    inFlight.remove(key, run);
+                    run.done.complete(outcome);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, run);
+            run.done.completeExceptionally(e);
         }
+        return run.done;
     }
 
-    private Element findBestLink(org.jsoup.select.Elements links) {
-        Element bestLink = null;
-        LocalDate maxDate = LocalDate.MIN;
-        Pattern datePattern = Pattern.compile("(\\d{2})[._](\\d{2})[._](\\d{4})");
+    private UpdateOutcome runUpdate(ScheduleSource source, Consumer<String> statusCallback, boolean forceDownload) {
+        ParsingMeta meta = metaRepository.findById(source.key()).orElseGet(() -> newMeta(source.key()));
 
-        for (Element link : links) {
-            String raw = link.text() + " " + link.attr("href");
-            if (!raw.toLowerCase().contains("расписание")) continue;
-
-            Matcher m = datePattern.matcher(raw);
-            if (m.find()) {
-                try {
-                    int day = Integer.parseInt(m.group(1));
-                    int month = Integer.parseInt(m.group(2));
-                    int year = Integer.parseInt(m.group(3));
-                    LocalDate date = LocalDate.of(year, month, day);
-                    
-                    if (date.isAfter(maxDate)) {
-                        maxDate = date;
-                        bestLink = link;
-                    }
-                } catch (Exception ignored) {}
+        try (SourceFetch fetch = source.fetch(meta, forceDownload, statusCallback)) {
+            if (!fetch.hasFile()) {
+                // Источник мог обновить валидаторы и время проверки; после ошибки метаданные не трогаем
+                if (fetch.outcome() != UpdateOutcome.FAILED) metaRepository.save(meta);
+                return fetch.outcome();
             }
+            return importFile(source, fetch.location(), fetch.file(), meta, statusCallback, forceDownload);
+        } catch (Exception e) {
+            log.error("Update of '{}' failed", source.key(), e);
+            statusCallback.accept("❌ Ошибка: " + e.getMessage());
+            return UpdateOutcome.FAILED;
         }
-        return bestLink != null ? bestLink : links.last();
+    }
+
+    private ParsingMeta newMeta(String key) {
+        ParsingMeta meta = new ParsingMeta();
+        meta.setKeyName(key);
+        meta.setLastFileHash("");
+        meta.setLastFileUrl("");
+        meta.setLastDateRange("");
+        meta.setLastBellSchedule("");
+        return meta;
     }
 
     public ScheduleBundle parseFileOnly(String url) throws Exception {
-        String encodedUrl = fixUrl(url);
+        String encodedUrl = HttpFetcher.encodeUrl(url);
         log.info("Parsing file from: {}", encodedUrl);
         
-        try (InputStream in = new URL(encodedUrl).openStream()) {
-            return parserService.parse(in);
+        try (FileDownload file = httpFetcher.download(encodedUrl)) {
+            return parserService.parse(file.path().toFile(), Collections.emptyMap());
         }
     }
 
-    @Transactional
-    public void processNewFile(String url, ParsingMeta meta, Consumer<String> statusCallback, boolean force) throws Exception {
-        statusCallback.accept("📥 Скачивание...");
-        meta.setLastCheckTime(LocalDateTime.now());
-        
-        String encodedUrl = fixUrl(url);
-
-        byte[] fileBytes;
-        try (InputStream in = new URL(encodedUrl).openStream()) {
-            fileBytes = in.readAllBytes();
-        }
-
-        String currentHash = DigestUtils.md5DigestAsHex(fileBytes);
+    private UpdateOutcome importFile(ScheduleSource source, String url, FileDownload file, ParsingMeta meta,
+                                     Consumer<String> statusCallback, boolean force) {
         boolean metaIsComplete = meta.getLastBellSchedule() != null && !meta.getLastBellSchedule().isEmpty();
+        String currentHash = file.md5();
 
         if (!force && currentHash.equals(meta.getLastFileHash()) && metaIsComplete) {
             log.debug("Файл не изменился.");
             statusCallback.accept("✅ Файл не изменился.");
+            meta.setLastFileUrl(url);
+            meta.setFileEtag(file.etag());
+            meta.setFileLastModified(file.lastModified());
             metaRepository.save(meta);
-            return;
+            return UpdateOutcome.UNCHANGED;
         }
 
         statusCallback.accept("⚙️ Парсинг...");
-        try (InputStream parseStream = new ByteArrayInputStream(fileBytes)) {
-            ScheduleBundle newBundle = parserService.parse(parseStream);
-            List<Lesson> newLessons = newBundle.lessons();
-            LocalDate newWeekStart = newBundle.weekStart();
-            String newDateRange = newBundle.dateRangeString();
-            String newBells = newBundle.bellSchedule();
-
-            if (newLessons.isEmpty()) {
-                statusCallback.accept("⚠️ Файл пуст или парсинг не удался.");
-                return;
-            }
+        // Отпечатки пишутся в одной транзакции с уроками, начиная с первой версионной загрузки;
+        // до неё уроков под ними в БД может не быть
+        Map<String, GroupFingerprint> stored = meta.getCurrentVersion() == null
+                ? Collections.emptyMap()
+                : fingerprintRepository.findAllOfSource(source.key(), sourceRegistry.isDefault(source)).stream()
+                    .collect(Collectors.toMap(GroupFingerprint::getGroupName, fp -> fp));
+        // При принудительном обновлении разбираем все группы заново; парсер знает группы без префикса источника
+        Map<String, String> knownBlocks = force
+                ? Collections.emptyMap()
+                : stored.values().stream()
+                    .collect(Collectors.toMap(fp -> ScheduleSourceRegistry.unqualify(source, fp.getGroupName()),
+                            GroupFingerprint::getBlockHash));
 
-            boolean isNewWeek = meta.getWeekStart() != null && !meta.getWeekStart().isEqual(newWeekStart);
+        ScheduleBundle newBundle = qualify(source, parserService.parse(file.path().toFile(), knownBlocks));
+        LocalDate newWeekStart = newBundle.weekStart();
+        String newDateRange = newBundle.dateRangeString();
+        String newBells = newBundle.bellSchedule();
 
-            boolean bellsChanged = false;
-            if (newBells != null && !newBells.isBlank()) {
-                if (meta.getLastBellSchedule() != null && !meta.getLastBellSchedule().equals(newBells)) {
-                    bellsChanged = true;
-                }
+        if (newBundle.lessons().isEmpty() && newBundle.unchangedGroups().isEmpty()) {
+            statusCallback.accept("⚠️ Файл пуст или парсинг не удался.");
+            return UpdateOutcome.FAILED;
+        }
+
+        Set<String> fileGroups = newBundle.blockHashes().keySet();
+        Set<String> parsedGroups = new HashSet<>(fileGroups);
+        parsedGroups.removeAll(newBundle.unchangedGroups());
+        // Блок мог поменяться без изменения уроков (пересохранение, правка оформления) —
+        // такие группы не читаются из БД и не сравниваются
+        Set<String> changedGroups = new HashSet<>();
+        for (String group : parsedGroups) {
+            GroupFingerprint old = stored.get(group);
+            if (force || old == null || !newBundle.contentHashes().get(group).equals(old.getContentHash())) {
+                changedGroups.add(group);
+            }
+        }
+        // Пропавшие группы ищем по урокам текущей версии, а не по отпечаткам: до первой версионной загрузки
+        // отпечатков нет, а уроки у групп есть
+        Set<String> removedGroups = new HashSet<>(lessonRepository.findGroupNamesOfSource(source.key()));
+        removedGroups.removeAll(fileGroups);
+        // Группы с неразобранного листа в бандл не попали, но из файла не исчезли — их уроки не трогаем
+        boolean partial = newBundle.failedSheets() > 0;
+        if (partial) {
+            log.warn("{}: листов не разобрано: {}, удаление групп пропущено", source.key(), newBundle.failedSheets());
+            removedGroups.clear();
+        }
+        boolean isNewWeek = meta.getWeekStart() != null && !meta.getWeekStart().isEqual(newWeekStart);
+
+        boolean bellsChanged = false;
+        if (newBells != null && !newBells.isBlank()) {
+            if (meta.getLastBellSchedule() != null && !meta.getLastBellSchedule().equals(newBells)) {
+                bellsChanged = true;
             }
+        }
+
+        Map<String, Broadcast.Notice> notifications = new HashMap<>();
+        Set<String> affectedGroups = new HashSet<>();
 
-            Map<String, String> notifications = new HashMap<>();
-            Set<String> affectedGroups = new HashSet<>();
+        List<Lesson> newLessons = newBundle.lessons().stream()
+                .filter(lesson -> changedGroups.contains(lesson.getGroupName()))
+                .toList();
+        Map<String, List<Lesson>> newMap = newLessons.stream().collect(Collectors.groupingBy(Lesson::getGroupName));
 
-            List<Lesson> oldLessons = lessonRepository.findAll();
-            Map<String, List<Lesson>> oldMap = oldLessons.stream().collect(Collectors.groupingBy(Lesson::getGroupName));
-            Map<String, List<Lesson>> newMap = newLessons.stream().collect(Collectors.groupingBy(Lesson::getGroupName));
+        // Старые уроки читаются только для групп с изменившимся содержимым
+        if (!changedGroups.isEmpty()) {
+            Map<String, List<Lesson>> oldMap = lessonRepository.findByGroupNameIn(changedGroups).stream()
+                    .collect(Collectors.groupingBy(Lesson::getGroupName));
 
-            for (String group : newMap.keySet()) {
-                List<Lesson> gNew = newMap.get(group);
+            for (String group : changedGroups) {
+                List<Lesson> gNew = newMap.getOrDefault(group, Collections.emptyList());
                 List<Lesson> gOld = oldMap.getOrDefault(group, Collections.emptyList());
+                // Отпечаток мог отсутствовать или запрос был принудительным — сверяем с тем, что в БД
+                if (newBundle.contentHashes().get(group).equals(ScheduleParserService.contentHash(gOld))) continue;
 
-                if (!isScheduleEqual(gOld, gNew)) {
+                if (isNewWeek) {
                     affectedGroups.add(group);
-                    if (isNewWeek) {
-                        notifications.put(group, "📅 <b>Новое расписание!</b> (" + newDateRange + ")\nПроверь /rasp");
-                    } else {
-                        String diff = diffService.generateDiffReport(null, group, gOld, gNew, newWeekStart);
-                        if (diff != null) notifications.put(group, diff);
-                    }
+                    notifications.put(group, Broadcast.Notice.of("📅 <b>Новое расписание!</b> (" + newDateRange + ")\nПроверь /rasp"));
+                } else if (diffService.hasChanges(gOld, gNew)) {
+                    affectedGroups.add(group);
+                    // Текст строится для каждого варианта настроек получателей при постановке в очередь
+                    notifications.put(group, (aliases, showCodes) ->
+                            diffService.generateDiffReport(aliases, showCodes, group, gOld, gNew, newWeekStart));
                 }
             }
+        }
 
-            statusCallback.accept("💾 Сохранение в БД...");
-            lessonRepository.deleteAll();
-            lessonRepository.saveAll(newLessons);
-            
-            meta.setLastFileUrl(url);
+        String type = isNewWeek ? "НОВАЯ НЕДЕЛЯ" : "ИЗМЕНЕНИЯ";
+        List<OutgoingMessage> direct = new ArrayList<>();
+        if (!affectedGroups.isEmpty() && properties.getAdminId() != null) {
+            String adminMsg = "📢 <b>Рассылка (" + type + "):</b>\nЗатронуто групп: " + affectedGroups.size() + "\n" + String.join(", ", affectedGroups);
+            if (adminMsg.length() > 4000) adminMsg = adminMsg.substring(0, 4000) + "...";
+            direct.add(new OutgoingMessage(properties.getAdminId(), adminMsg));
+        }
+        // Звонки получают все студенты с уведомлениями, чья группа относится к этому источнику; студенты
+        // без группы или с группой, которой нет ни в одном источнике, — звонки источника по умолчанию
+        List<Broadcast.Notice> general = bellsChanged
+                ? List.of(Broadcast.Notice.of("🔔 <b>Изменилось расписание звонков!</b>\n\n" + newBells))
+                : List.of();
+        Map<String, List<Broadcast.Notice>> noticesByGroup = new LinkedHashMap<>();
+        notifications.forEach((group, notice) -> noticesByGroup.put(group, List.of(notice)));
+        Broadcast broadcast = new Broadcast(direct, general,
+                group -> sourceRegistry.sourceOfGroup(group) == source, noticesByGroup);
+
+        statusCallback.accept("💾 Сохранение в БД...");
+        Set<String> replacedGroups = new HashSet<>(changedGroups);
+        replacedGroups.addAll(removedGroups);
+        // Принудительный переимпорт того же файла — не новая публикация: ни в историю, ни в итог не идёт.
+        // Частичный импорт хеш не запоминает и будет повторён — публикацию засчитает полный
+        boolean published = !partial && !currentHash.equals(meta.getLastFileHash());
+        meta.setLastFileUrl(url);
+        if (partial) {
+            // Хеш и валидаторы не запоминаем, а проверку сбрасываем — следующий опрос скачает и разберёт файл заново
+            meta.setLastFileCheckTime(null);
+        } else {
             meta.setLastFileHash(currentHash);
-            meta.setLastDateRange(newDateRange);
-            meta.setWeekStart(newWeekStart);
-            meta.setLastBellSchedule(newBells);
-            meta.setLastSuccessfulUpdate(LocalDateTime.now());
-            metaRepository.save(meta);
-            
-            if (bellsChanged) {
-                 String bellMsg = "🔔 <b>Изменилось расписание звонков!</b>\n\n" + newBells;
-                 List<Student> allStudents = studentRepository.findAll();
-                 for (Student s : allStudents) {
-                     if (s.isNotificationsEnabled()) {
-                         try {
-                             botClient.execute(SendMessage.builder().chatId(s.getChatId().toString()).text(bellMsg).parseMode("HTML").build());
-                         } catch (Exception ignored) {}
-                     }
-                 }
-                 statusCallback.accept("🔔 Звонки обновлены.");
-            }
+            meta.setFileEtag(file.etag());
+            meta.setFileLastModified(file.lastModified());
+        }
+        meta.setLastDateRange(newDateRange);
+        meta.setWeekStart(newWeekStart);
+        meta.setLastBellSchedule(newBells);
+        meta.setLastSuccessfulUpdate(LocalDateTime.now());
+        if (published) {
+            meta.setChangeHistory(ChangeHistory.append(meta.getChangeHistory(), meta.getLastSuccessfulUpdate()));
+        }
 
-            if (!affectedGroups.isEmpty()) {
-                String type = isNewWeek ? "НОВАЯ НЕДЕЛЯ" : "ИЗМЕНЕНИЯ";
-                statusCallback.accept("🔔 Рассылка (" + type + ") для " + affectedGroups.size() + " групп...");
-                
-                if (properties.getAdminId() != null) {
-                    try {
-                        String adminMsg = "📢 <b>Рассылка (" + type + "):</b>\nЗатронуто групп: " + affectedGroups.size() + "\n" + String.join(", ", affectedGroups);
-                        if (adminMsg.length() > 4000) adminMsg = adminMsg.substring(0, 4000) + "...";
-                        botClient.execute(SendMessage.builder()
-                            .chatId(properties.getAdminId().toString())
-                            .text(adminMsg)
-                            .parseMode("HTML")
-                            .build());
-                    } catch (Exception ignored) {}
-                }
-                sendNotifications(notifications);
-            }
-            
-            statusCallback.accept("✅ Готово! Уроков: " + newLessons.size());
+        // Уроки, отпечатки и метаданные пишутся одной транзакцией; читатели переключаются на новую версию при коммите
+        List<GroupFingerprint> fingerprints = parsedGroups.stream()
+                .map(group -> new GroupFingerprint(group, source.key(),
+                        newBundle.blockHashes().get(group), newBundle.contentHashes().get(group)))
+                .toList();
+        SchedulePersistenceService.WriteStats written = persistenceService.importVersion(
+                meta, replacedGroups, newLessons, fingerprints, removedGroups, broadcast);
+
+        if (bellsChanged) statusCallback.accept("🔔 Звонки обновлены.");
+        if (!affectedGroups.isEmpty()) {
+            statusCallback.accept("🔔 Рассылка (" + type + ") для " + affectedGroups.size() + " групп...");
+        }
+        if (written.queued() > 0) {
+            // Транзакция импорта закоммичена — отправка идёт в фоне и соединение с БД не держит
+            statusCallback.accept("📨 В очереди рассылки: " + written.queued() + " сообщ.");
+            outbox.drainAsync();
         }
+        
+        statusCallback.accept("✅ Готово! Обновлено групп: " + changedGroups.size() + " из " + fileGroups.size()
+                + ", строк: +" + written.inserted() + " ~" + written.updated() + " -" + written.deleted());
+        return published ? UpdateOutcome.CHANGED : UpdateOutcome.UNCHANGED;
     }
 
-    private String fixUrl(String url) throws Exception {
-        URL rawUrl = new URL(url);
-        // Сначала декодируем (убираем %20), чтобы URI мог закодировать чисто
-        String decodedPath = URLDecoder.decode(rawUrl.getPath(), StandardCharsets.UTF_8);
-        return new URI(
-                rawUrl.getProtocol(), 
-                rawUrl.getUserInfo(), 
-                rawUrl.getHost(), 
-                rawUrl.getPort(), 
-                decodedPath, 
-                rawUrl.getQuery(), 
-                null
-        ).toASCIIString();
+    /**
+     * Переводит разобранный файл в пространство имён источника: группы получают префикс, уроки — ключ источника.
+     */
+    private ScheduleBundle qualify(ScheduleSource source, ScheduleBundle bundle) {
+        bundle.lessons().forEach(lesson -> {
+            lesson.setGroupName(ScheduleSourceRegistry.qualify(source, lesson.getGroupName()));
+            lesson.setSourceKey(source.key());
+        });
+        return new ScheduleBundle(
+                bundle.lessons(),
+                bundle.dateRangeString(),
+                bundle.weekStart(),
+                bundle.bellSchedule(),
+                qualifyKeys(source, bundle.blockHashes()),
+                bundle.unchangedGroups().stream()
+                        .map(group -> ScheduleSourceRegistry.qualify(source, group))
+                        .collect(Collectors.toSet()),
+                qualifyKeys(source, bundle.contentHashes()),
+                bundle.failedSheets());
     }
 
-    private boolean isScheduleEqual(List<Lesson> list1, List<Lesson> list2) {
-        if (list1.size() != list2.size()) return false;
-        Comparator<Lesson> c = Comparator.comparing(Lesson::getDayOfWeek).thenComparingInt(Lesson::getLessonNumber);
-        list1.sort(c); list2.sort(c);
-        return list1.equals(list2);
+    private static Map<String, String> qualifyKeys(ScheduleSource source, Map<String, String> byGroup) {
+        Map<String, String> result = new LinkedHashMap<>();
+        byGroup.forEach((group, value) -> result.put(ScheduleSourceRegistry.qualify(source, group), value));
+        return result;
     }
 
-    private void sendNotifications(Map<String, String> notifications) {
-        List<Student> students = studentRepository.findAll();
-        for (Student s : students) {
-            if (s.isNotificationsEnabled() && s.getSelectedGroup() != null) {
-                String text = notifications.get(s.getSelectedGroup());
-                if (text != null) {
-                    try {
-                        botClient.execute(SendMessage.builder().chatId(s.getChatId().toString()).text(text).parseMode("HTML").build());
-                    } catch (Exception ignored) {}
-                }
+    /**
+     * Идущее обновление: его статусы рассылаются всем подписчикам, {@code done} завершается вместе с ним.
+     * Подписчики (обычно правка сообщения в Telegram) вызываются не под блокировкой и не в потоке обновления:
+     * у каждого своя очередь на {@code executor}, поэтому медленный подписчик не задерживает ни импорт,
+     * ни остальных, а свои статусы получает по порядку.
+     */
+    private static final class InFlightUpdate {
+        private final Executor executor;
+        private final List<Subscriber> subscribers = new ArrayList<>();
+        private final CompletableFuture<UpdateOutcome> done = new CompletableFuture<>();
+        private String lastStatus;
+
+        InFlightUpdate(Executor executor) {
+            this.executor = executor;
+        }
+
+        synchronized CompletableFuture<UpdateOutcome> attach(Consumer<String> listener) {
+            Subscriber subscriber = new Subscriber(listener);
+            subscribers.add(subscriber);
+            // Текущий статус ставится в очередь под блокировкой, иначе его мог бы обогнать следующий publish
+            if (lastStatus != null) subscriber.offer(lastStatus, executor);
+            return done;
+        }
+
+        void publish(String status) {
+            List<Subscriber> recipients;
+            synchronized (this) {
+                lastStatus = status;
+                recipients = List.copyOf(subscribers);
+            }
+            recipients.forEach(subscriber -> subscriber.offer(status, executor));
+        }
+    }
+
+    private static final class Subscriber {
+        private final Consumer<String> listener;
+        private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+
+        Subscriber(Consumer<String> listener) {
+            this.listener = listener;
+        }
+
+        synchronized void offer(String status, Executor executor) {
+            try {
+                tail = tail.thenRunAsync(() -> deliver(status), executor);
+            } catch (RejectedExecutionException e) {
+                log.debug("Status dropped on shutdown: {}", status);
+            }
+        }
+
+        private void deliver(String status) {
+            try {
+                listener.accept(status);
+            } catch (Exception e) {
+                log.debug("Status listener failed: {}", e.getMessage());
             }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,59 @@
+package pro.kaleert.uwubot.service.notification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Уведомления одного импорта до разворачивания по получателям.
+ *
+ * @param direct         сообщения конкретным чатам (админу)
+ * @param general        уведомления всем подписчикам, чья группа проходит {@code audience} (звонки)
+ * @param audience       кому из подписчиков отправляются {@code general}, по выбранной группе (у студента без группы — {@code null})
+ * @param noticesByGroup уведомления для подписчиков группы в порядке отправки; идут после {@code general}
+ */
+public record Broadcast(List<OutgoingMessage> direct, List<Notice> general, Predicate<String> audience,
+                        Map<String, List<Notice>> noticesByGroup) {
+
+    public static final Broadcast NONE = new Broadcast(List.of(), Map.of());
+
+    public Broadcast(List<OutgoingMessage> direct, Map<String, List<Notice>> noticesByGroup) {
+        this(direct, List.of(), group -> false, noticesByGroup);
+    }
+
+    public boolean isEmpty() {
+        return direct.isEmpty() && general.isEmpty() && noticesByGroup.isEmpty();
+    }
+
+    /**
+     * Уведомления подписчику с выбранной группой {@code group}, в порядке отправки.
+     */
+    public List<Notice> noticesFor(String group) {
+        List<Notice> byGroup = group == null ? List.of() : noticesByGroup.getOrDefault(group, List.of());
+        if (general.isEmpty() || !audience.test(group)) return byGroup;
+        List<Notice> notices = new ArrayList<>(general.size() + byGroup.size());
+        notices.addAll(general);
+        notices.addAll(byGroup);
+        return notices;
+    }
+
+    /**
+     * Текст уведомления с учётом настроек получателя. Для одинаковых (группа, набор сокращений, показ кодов)
+     * вызывается один раз за рассылку, поэтому должен зависеть только от аргументов.
+     */
+    @FunctionalInterface
+    public interface Notice {
+
+        /**
+         * @param aliases   сокращения предметов получателя (ключ — название в нижнем регистре)
+         * @param showCodes показывать ли коды предметов
+         * @return текст или {@code null}, если получателю отправлять нечего
+         */
+        String render(Map<String, String> aliases, boolean showCodes);
+
+        static Notice of(String text) {
+            return (aliases, showCodes) -> text;
+        }
+    }
+}
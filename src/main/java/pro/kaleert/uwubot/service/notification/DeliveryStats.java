@@ -0,0 +1,88 @@
+package pro.kaleert.uwubot.service.notification;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счётчики рассылки с момента запуска (для /stats): сообщения, доставки, ошибки по видам и задержка
+ * запросов к Telegram. Процентили считаются по последним {@value #LATENCY_SAMPLES} запросам.
+ */
+@Component
+public class DeliveryStats {
+
+    static final int LATENCY_SAMPLES = 4096;
+
+    private final LongAdder attempted = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final Map<FailureKind, LongAdder> failed = new EnumMap<>(FailureKind.class);
+
+    // Кольцевой буфер задержек (нс)
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private int nextSample;
+    private int samples;
+
+    public DeliveryStats() {
+        for (FailureKind kind : FailureKind.values()) failed.put(kind, new LongAdder());
+    }
+
+    void attempted() {
+        attempted.increment();
+    }
+
+    void delivered() {
+        delivered.increment();
+    }
+
+    void failed(FailureKind kind) {
+        failed.get(kind).increment();
+    }
+
+    void retried() {
+        retries.increment();
+    }
+
+    synchronized void latency(long nanos) {
+        latencies[nextSample] = nanos;
+        nextSample = (nextSample + 1) % LATENCY_SAMPLES;
+        if (samples < LATENCY_SAMPLES) samples++;
+    }
+
+    public Snapshot snapshot() {
+        long[] sorted;
+        synchronized (this) {
+            sorted = Arrays.copyOf(latencies, samples);
+        }
+        Arrays.sort(sorted);
+
+        Map<FailureKind, Long> failures = new EnumMap<>(FailureKind.class);
+        failed.forEach((kind, count) -> failures.put(kind, count.sum()));
+        return new Snapshot(attempted.sum(), delivered.sum(), failures, retries.sum(),
+                percentile(sorted, 0.50), percentile(sorted, 0.99), sorted.length);
+    }
+
+    private static Duration percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) return null;
+        int rank = (int) Math.ceil(quantile * sorted.length);
+        return Duration.ofNanos(sorted[Math.max(0, rank - 1)]);
+    }
+
+    /**
+     * @param failed  окончательно не доставленные сообщения по видам ошибок
+     * @param retries повторов после 429 и сетевых ошибок
+     * @param p50     медиана задержки запроса; {@code null}, пока запросов не было
+     * @param samples по скольким запросам посчитаны процентили
+     */
+    public record Snapshot(long attempted, long delivered, Map<FailureKind, Long> failed, long retries,
+                           Duration p50, Duration p99, int samples) {
+
+        public long failedTotal() {
+            return failed.values().stream().mapToLong(Long::longValue).sum();
+        }
+    }
+}
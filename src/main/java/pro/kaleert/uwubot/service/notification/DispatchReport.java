@@ -0,0 +1,36 @@
+package pro.kaleert.uwubot.service.notification;
+
+import java.time.Duration;
+
+/**
+ * Итог рассылки.
+ *
+ * @param attempted сообщений в рассылке
+ * @param delivered доставлено
+ * @param failed    не доставлено после всех попыток
+ * @param retries   повторов после 429
+ * @param elapsed   время от начала до последнего ответа Telegram
+ */
+public record DispatchReport(int attempted, int delivered, int failed, int retries, Duration elapsed) {
+
+    public static final DispatchReport EMPTY = new DispatchReport(0, 0, 0, 0, Duration.ZERO);
+
+    /**
+     * Итог нескольких пачек, отправленных одна за другой.
+     */
+    public DispatchReport plus(DispatchReport other) {
+        return new DispatchReport(attempted + other.attempted, delivered + other.delivered,
+                failed + other.failed, retries + other.retries, elapsed.plus(other.elapsed));
+    }
+
+    public double messagesPerSecond() {
+        long millis = elapsed.toMillis();
+        return millis == 0 ? delivered : delivered * 1000.0 / millis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d/%d доставлено, ошибок: %d, повторов: %d, %.1f с (%.1f сообщ./с)",
+                delivered, attempted, failed, retries, elapsed.toMillis() / 1000.0, messagesPerSecond());
+    }
+}
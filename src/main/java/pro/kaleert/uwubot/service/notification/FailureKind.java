@@ -0,0 +1,73 @@
+package pro.kaleert.uwubot.service.notification;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Причина, по которой Telegram не принял сообщение. Вид определяется по коду ошибки Bot API
+ * ({@link TelegramError}), а без ответа Telegram — по типу исключения: сетевые ошибки отдельно, остальное — прочие.
+ * Постоянными считаются только ошибки с кодом из ответа, поэтому непонятная ошибка никого не отписывает.
+ */
+public enum FailureKind {
+    /**
+     * Пользователь заблокировал бота, удалил аккаунт или бота исключили из чата (403).
+     */
+    BLOCKED("заблокировали", true),
+    /**
+     * Чата больше нет (400 chat not found).
+     */
+    CHAT_NOT_FOUND("чат не найден", true),
+    /**
+     * 429, попытки с учётом retry_after исчерпаны.
+     */
+    RATE_LIMITED("лимит Telegram", false),
+    /**
+     * Таймаут или обрыв соединения.
+     */
+    NETWORK("сеть", false),
+    OTHER("прочие", false);
+
+    private final String title;
+    private final boolean permanent;
+
+    FailureKind(String title, boolean permanent) {
+        this.title = title;
+        this.permanent = permanent;
+    }
+
+    public String title() {
+        return title;
+    }
+
+    /**
+     * Повторять отправку в этот чат бессмысленно, пока пользователь сам не вернётся.
+     */
+    public boolean isPermanent() {
+        return permanent;
+    }
+
+    // У 400 нет отдельных кодов, причина — только в описании ответа
+    private static final Set<String> CHAT_NOT_FOUND_DESCRIPTIONS = Set.of(
+            "bad request: chat not found", "bad request: user not found", "bad request: peer_id_invalid");
+
+    public static FailureKind classify(Throwable error) {
+        TelegramError api = TelegramError.find(error).orElse(null);
+        if (api != null) {
+            return switch (api.code()) {
+                // Бота заблокировали, аккаунт удалён или бота исключили из чата
+                case 403 -> BLOCKED;
+                case 429 -> RATE_LIMITED;
+                case 400 -> CHAT_NOT_FOUND_DESCRIPTIONS.contains(api.description().toLowerCase(Locale.ROOT).trim())
+                        ? CHAT_NOT_FOUND
+                        : OTHER;
+                default -> api.code() >= 500 ? NETWORK : OTHER;
+            };
+        }
+        int depth = 0;
+        for (Throwable cause = error; cause != null && depth < 10; cause = cause.getCause(), depth++) {
+            if (cause instanceof IOException) return NETWORK;
+        }
+        return OTHER;
+    }
+}
@@ -0,0 +1,71 @@
+package pro.kaleert.uwubot.service.notification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Собирает уведомления одного обновления для чата (звонки, изменения, новая неделя) в одно сообщение.
+ * Делит только когда текст не помещается в лимит Telegram: сначала по границам уведомлений, затем по строкам.
+ * HTML-теги в уведомлениях открываются и закрываются в пределах строки, поэтому деление по строкам их не ломает.
+ */
+final class MessageComposer {
+
+    static final int MAX_LENGTH = 4096;
+    private static final String SEPARATOR = "\n\n";
+
+    private MessageComposer() {
+    }
+
+    static List<String> compose(List<String> items) {
+        List<String> messages = new ArrayList<>(1);
+        StringBuilder current = new StringBuilder();
+        for (String item : items) {
+            String text = item.strip();
+            if (text.isEmpty()) continue;
+            if (fits(current, text)) {
+                append(current, text);
+                continue;
+            }
+            if (text.length() <= MAX_LENGTH) {
+                // Уведомление, которое влезает целиком, не разрываем — начинаем с него новое сообщение
+                flush(current, messages);
+                current.append(text);
+            } else {
+                // Длинное всё равно делится — дописываем его по строкам к уже собранному
+                if (!current.isEmpty()) current.append('\n');
+                splitLines(text, current, messages);
+            }
+        }
+        flush(current, messages);
+        return messages;
+    }
+
+    private static void splitLines(String text, StringBuilder current, List<String> messages) {
+        for (String line : text.split("\n", -1)) {
+            if (current.length() + line.length() + 1 > MAX_LENGTH) flush(current, messages);
+            // Строка длиннее лимита режется как есть — иначе сообщение не уйдёт вовсе
+            while (line.length() > MAX_LENGTH) {
+                messages.add(line.substring(0, MAX_LENGTH));
+                line = line.substring(MAX_LENGTH);
+            }
+            if (!current.isEmpty()) current.append('\n');
+            current.append(line);
+        }
+    }
+
+    private static boolean fits(StringBuilder current, String text) {
+        int separator = current.isEmpty() ? 0 : SEPARATOR.length();
+        return current.length() + separator + text.length() <= MAX_LENGTH;
+    }
+
+    private static void append(StringBuilder current, String text) {
+        if (!current.isEmpty()) current.append(SEPARATOR);
+        current.append(text);
+    }
+
+    private static void flush(StringBuilder current, List<String> messages) {
+        String message = current.toString().strip();
+        if (!message.isEmpty()) messages.add(message);
+        current.setLength(0);
+    }
+}
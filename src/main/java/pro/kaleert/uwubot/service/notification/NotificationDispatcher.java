@@ -0,0 +1,198 @@
+package pro.kaleert.uwubot.service.notification;
+
+import com.kaleert.nyagram.api.methods.send.SendMessage;
+import com.kaleert.nyagram.client.NyagramClient;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import pro.kaleert.uwubot.config.UwuBotConfig;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Параллельная рассылка в пределах лимитов Telegram.
+ * <p>
+ * Каждый чат обслуживает свой виртуальный поток: сообщения одного чата уходят по порядку и не чаще
+ * {@code notifications.per-chat-interval-ms}, а все потоки вместе берут токены из общего ведра
+ * на {@code notifications.global-rate-per-second}. На 429 поток ждёт {@code retry_after} из ответа
+ * и повторяет отправку, на сетевую ошибку — повторяет с растущей паузой; остальные ошибки
+ * ({@link FailureKind}) не повторяются. Интервалы чатов общие для всех рассылок, поэтому одновременные импорты
+ * разных источников не удваивают частоту сообщений в один чат.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NotificationDispatcher {
+
+    private static final long DEFAULT_RETRY_AFTER_SECONDS = 5;
+
+    private final NyagramClient botClient;
+    private final DeliveryStats stats;
+    private final UwuBotConfig properties;
+
+    // Время (System.nanoTime) последней зарезервированной отправки в чат
+    private final ConcurrentMap<Long, Long> chatSlots = new ConcurrentHashMap<>();
+    private TokenBucket bucket;
+
+    @PostConstruct
+    public void init() {
+        bucket = new TokenBucket(Math.max(1, properties.getNotifications().getGlobalRatePerSecond()));
+    }
+
+    /**
+     * Отправляет пачку сообщений и ждёт окончания её отправки. О каждом сообщении сообщает {@code listener}
+     * (из потока его чата, сразу после ответа Telegram).
+     */
+    public DispatchReport dispatch(List<OutgoingMessage> messages, DeliveryListener listener) {
+        if (messages.isEmpty()) return DispatchReport.EMPTY;
+
+        Map<Long, List<OutgoingMessage>> byChat = new LinkedHashMap<>();
+        for (OutgoingMessage message : messages) {
+            if (message.chatId() == null || message.text() == null) {
+                listener.failed(message, FailureKind.OTHER, "нет чата или текста");
+                continue;
+            }
+            byChat.computeIfAbsent(message.chatId(), chat -> new ArrayList<>()).add(message);
+        }
+
+        AtomicInteger delivered = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicInteger retries = new AtomicInteger();
+        long started = System.nanoTime();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            byChat.forEach((chatId, chatMessages) -> executor.execute(() -> {
+                for (OutgoingMessage message : chatMessages) {
+                    // Прерванная рассылка оставляет остальные сообщения неотмеченными — их отправит следующая
+                    if (Thread.currentThread().isInterrupted()) return;
+                    stats.attempted();
+                    Failure failure = send(chatId, message.text(), retries);
+                    if (failure == null) {
+                        delivered.incrementAndGet();
+                        stats.delivered();
+                        callListener(listener, message, null);
+                    } else if (!Thread.currentThread().isInterrupted()) {
+                        failed.incrementAndGet();
+                        stats.failed(failure.kind());
+                        callListener(listener, message, failure);
+                    }
+                }
+            }));
+        }
+
+        int attempted = byChat.values().stream().mapToInt(List::size).sum();
+        DispatchReport report = new DispatchReport(attempted, delivered.get(), failed.get(), retries.get(),
+                Duration.ofNanos(System.nanoTime() - started));
+        releaseIdleChats();
+        log.debug("Пачка рассылки: {}", report);
+        return report;
+    }
+
+    private static void callListener(DeliveryListener listener, OutgoingMessage message, Failure failure) {
+        try {
+            if (failure == null) {
+                listener.delivered(message);
+            } else {
+                listener.failed(message, failure.kind(), failure.error());
+            }
+        } catch (Exception e) {
+            log.warn("Delivery listener failed for chat {}: {}", message.chatId(), e.getMessage());
+        }
+    }
+
+    /**
+     * @return {@code null}, если сообщение доставлено, иначе последняя ошибка
+     */
+    private Failure send(Long chatId, String text, AtomicInteger retries) {
+        int maxAttempts = Math.max(1, properties.getNotifications().getMaxAttempts());
+        Failure failure = null;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                awaitChatSlot(chatId);
+                sleepNanos(bucket.reserve());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new Failure(FailureKind.OTHER, "прервано");
+            }
+
+            long started = System.nanoTime();
+            try {
+                botClient.execute(SendMessage.builder().chatId(chatId.toString()).text(text).parseMode("HTML").build());
+                stats.latency(System.nanoTime() - started);
+                return null;
+            } catch (Exception e) {
+                stats.latency(System.nanoTime() - started);
+                failure = new Failure(FailureKind.classify(e), String.valueOf(e.getMessage()));
+                // Повторяем только временные ошибки: лимит и сеть
+                long delaySeconds = switch (failure.kind()) {
+                    case RATE_LIMITED -> Math.max(0, retryAfterSeconds(e));
+                    case NETWORK -> attempt;
+                    default -> -1;
+                };
+                if (delaySeconds < 0 || attempt == maxAttempts) break;
+
+                retries.incrementAndGet();
+                stats.retried();
+                log.debug("{} для чата {}, повтор через {} с", failure.kind(), chatId, delaySeconds);
+                // Следующая отправка в этот чат — не раньше, чем разрешил Telegram
+                postponeChat(chatId, Duration.ofSeconds(delaySeconds).toNanos());
+            }
+        }
+        log.debug("Не удалось отправить сообщение в чат {} ({}): {}", chatId, failure.kind(), failure.error());
+        return failure;
+    }
+
+    private void awaitChatSlot(Long chatId) throws InterruptedException {
+        long interval = chatInterval();
+        long now = System.nanoTime();
+        // Резервируем слот: следующий отправитель в этот чат получит слот на interval позже
+        long slot = chatSlots.merge(chatId, now, (previous, current) -> Math.max(previous + interval, current));
+        sleepNanos(slot - now);
+    }
+
+    private void postponeChat(Long chatId, long delayNanos) {
+        long until = System.nanoTime() + delayNanos;
+        // Слот ставится на interval раньше: awaitChatSlot прибавит интервал к последнему слоту
+        chatSlots.merge(chatId, until - chatInterval(), Math::max);
+    }
+
+    private long chatInterval() {
+        return Duration.ofMillis(Math.max(0, properties.getNotifications().getPerChatIntervalMs())).toNanos();
+    }
+
+    private void releaseIdleChats() {
+        long horizon = System.nanoTime() - chatInterval();
+        chatSlots.values().removeIf(slot -> slot < horizon);
+    }
+
+    /**
+     * @return {@code retry_after} из ответа 429 в секундах; если Telegram его не прислал — пауза по умолчанию
+     */
+    static long retryAfterSeconds(Throwable error) {
+        return TelegramError.find(error)
+                .map(TelegramError::retryAfter)
+                .orElse(DEFAULT_RETRY_AFTER_SECONDS);
+    }
+
+    public interface DeliveryListener {
+        void delivered(OutgoingMessage message);
+
+        void failed(OutgoingMessage message, FailureKind kind, String error);
+    }
+
+    private record Failure(FailureKind kind, String error) {}
+
+    private static void sleepNanos(long nanos) throws InterruptedException {
+        if (nanos > 0) Thread.sleep(Duration.ofNanos(nanos));
+    }
+}
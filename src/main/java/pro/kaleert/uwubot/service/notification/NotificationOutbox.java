@@ -0,0 +1,286 @@
+package pro.kaleert.uwubot.service.notification;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+import pro.kaleert.uwubot.config.UwuBotConfig;
+import pro.kaleert.uwubot.entity.OutboxMessage;
+import pro.kaleert.uwubot.entity.SubjectAlias;
+import pro.kaleert.uwubot.repository.OutboxMessageRepository;
+import pro.kaleert.uwubot.repository.StudentRepository;
+import pro.kaleert.uwubot.repository.SubjectAliasRepository;
+import pro.kaleert.uwubot.service.ScheduleDiffService;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Outbox уведомлений. Импорт записывает сообщения каждому получателю в своей транзакции
+ * ({@link #enqueue}), а отправляет их отдельный обработчик уже после коммита: соединение с БД
+ * не держится, пока идут запросы к Telegram, а недоставленное после падения остаётся в таблице.
+ * <p>
+ * Обработчик запускается после импорта и периодически ({@code notifications.outbox-poll-interval}),
+ * в том числе сразу после старта, поэтому прерванная рассылка продолжается после перезапуска.
+ * Каждая доставка отмечается отдельно; сообщение, отправленное перед самым падением, но не отмеченное,
+ * уйдёт повторно. После временной ошибки (лимит, сеть) сообщение остаётся ожидающим и откладывается
+ * до одного из следующих проходов; недоставленным оно отмечается после постоянной ошибки или исчерпав проходы.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NotificationOutbox {
+
+    private final OutboxMessageRepository outboxRepository;
+    private final StudentRepository studentRepository;
+    private final SubjectAliasRepository aliasRepository;
+    private final NotificationDispatcher dispatcher;
+    private final UwuBotConfig properties;
+    private final EntityManager entityManager;
+
+    private final ExecutorService drainExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ReentrantLock drainLock = new ReentrantLock();
+    // Запрошен ли проход по outbox после начала текущего
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
+
+    @PreDestroy
+    public void shutdown() {
+        drainExecutor.shutdownNow();
+    }
+
+    /**
+     * Записывает уведомления в outbox; вызывается внутри транзакции импорта. Подписчики читаются постранично
+     * (только поля из покрывающего индекса): если есть общие уведомления — все студенты с уведомлениями,
+     * иначе только подписчики групп с уведомлениями. Сокращения читаются одним запросом на страницу.
+     * Тексты строятся один раз на вариант (группа, набор сокращений, показ кодов), а не на получателя:
+     * у большинства сокращений нет или они одинаковые. Строки пишутся пачками по {@code page-size}.
+     *
+     * @return сколько сообщений поставлено в очередь
+     */
+    @Transactional
+    public int enqueue(String sourceKey, Broadcast broadcast) {
+        Batch batch = new Batch(sourceKey, broadcast);
+        for (OutgoingMessage message : broadcast.direct()) {
+            batch.rows.add(new OutboxMessage(message.chatId(), message.text(), sourceKey));
+        }
+        if (!broadcast.general().isEmpty()) {
+            // Общие уведомления (звонки) получают и студенты без группы или с группой, которой нет в файле
+            enqueuePages(batch, after -> studentRepository.findAllSubscribers(after, PageRequest.ofSize(pageSize())));
+        } else {
+            for (Map.Entry<String, List<Broadcast.Notice>> entry : broadcast.noticesByGroup().entrySet()) {
+                if (entry.getValue().isEmpty()) continue;
+                enqueuePages(batch, after -> studentRepository.findSubscribers(entry.getKey(), after,
+                        PageRequest.ofSize(pageSize())));
+            }
+        }
+        batch.queued += write(batch.rows);
+        log.debug("Outbox [{}]: {} messages for {} recipients, {} render variants",
+                sourceKey, batch.queued, batch.recipients, batch.renders.size());
+        return batch.queued;
+    }
+
+    private void enqueuePages(Batch batch, LongFunction<Slice<StudentRepository.Subscriber>> pages) {
+        long after = Long.MIN_VALUE;
+        Slice<StudentRepository.Subscriber> page;
+        do {
+            page = pages.apply(after);
+            if (!page.hasContent()) break;
+            after = page.getContent().get(page.getNumberOfElements() - 1).getUserId();
+
+            Map<Long, Map<String, String>> aliasesByUser = aliasRepository.findAllByUserIdIn(
+                            page.map(StudentRepository.Subscriber::getUserId).getContent()).stream()
+                    .collect(Collectors.groupingBy(SubjectAlias::getUserId,
+                            Collectors.collectingAndThen(Collectors.toList(), ScheduleDiffService::toAliasMap)));
+
+            for (StudentRepository.Subscriber subscriber : page) {
+                String group = subscriber.getSelectedGroup();
+                List<Broadcast.Notice> notices = batch.broadcast.noticesFor(group);
+                if (notices.isEmpty()) continue;
+                Map<String, String> aliases = aliasesByUser.getOrDefault(subscriber.getUserId(), Map.of());
+                boolean showCodes = Boolean.TRUE.equals(subscriber.getShowCodes());
+                // Без уведомлений своей группы получатели видят одни и те же общие тексты
+                String variant = group != null && batch.broadcast.noticesByGroup().containsKey(group) ? group : null;
+                List<String> texts = batch.renders.computeIfAbsent(
+                        new RenderKey(variant, aliasFingerprint(aliases), showCodes),
+                        key -> render(notices, aliases, showCodes));
+                texts.forEach(text -> batch.rows.add(
+                        new OutboxMessage(subscriber.getUserId(), subscriber.getChatId(), text, batch.sourceKey)));
+                batch.recipients++;
+            }
+
+            if (batch.rows.size() >= pageSize()) {
+                batch.queued += write(batch.rows);
+            }
+        } while (page.hasNext());
+    }
+
+    /**
+     * Пишет пачку строк и отпускает их из контекста транзакции: иначе все сообщения рассылки
+     * оставались бы в памяти до коммита импорта.
+     */
+    private int write(List<OutboxMessage> rows) {
+        int written = rows.size();
+        if (written == 0) return 0;
+        outboxRepository.saveAll(rows);
+        entityManager.flush();
+        rows.forEach(entityManager::detach);
+        rows.clear();
+        return written;
+    }
+
+    /**
+     * Все уведомления получателя за обновление — одним сообщением (несколькими, только если не влезают в лимит).
+     */
+    private static List<String> render(List<Broadcast.Notice> notices, Map<String, String> aliases, boolean showCodes) {
+        List<String> texts = new ArrayList<>(notices.size());
+        for (Broadcast.Notice notice : notices) {
+            String text = notice.render(aliases, showCodes);
+            if (text != null) texts.add(text);
+        }
+        return MessageComposer.compose(texts);
+    }
+
+    /**
+     * Отпечаток набора сокращений: одинаковые наборы дают одинаковый текст независимо от порядка записей.
+     */
+    static String aliasFingerprint(Map<String, String> aliases) {
+        if (aliases.isEmpty()) return "";
+        StringBuilder canonical = new StringBuilder();
+        new TreeMap<>(aliases).forEach((name, alias) -> canonical.append(name).append('\u0000').append(alias).append('\u0001'));
+        return DigestUtils.md5DigestAsHex(canonical.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Запускает проход по outbox в фоне и сразу возвращается.
+     */
+    public void drainAsync() {
+        drainExecutor.execute(this::drain);
+    }
+
+    @Scheduled(fixedDelayString = "${nyagram.notifications.outbox-poll-interval:60000}")
+    public void poll() {
+        drainAsync();
+        long retention = properties.getNotifications().getOutboxRetention();
+        if (retention > 0) {
+            int removed = outboxRepository.deleteProcessedBefore(LocalDateTime.now().minus(Duration.ofMillis(retention)));
+            if (removed > 0) log.debug("Outbox: removed {} processed messages", removed);
+        }
+    }
+
+    /**
+     * Отправляет все ожидающие сообщения. Проходы не пересекаются: запрос во время прохода
+     * выполняется повторным проходом сразу после текущего.
+     */
+    public void drain() {
+        drainRequested.set(true);
+        while (drainRequested.get() && drainLock.tryLock()) {
+            try {
+                while (drainRequested.getAndSet(false)) {
+                    drainPending();
+                }
+            } catch (Exception e) {
+                log.error("Outbox drain failed", e);
+            } finally {
+                drainLock.unlock();
+            }
+        }
+    }
+
+    private void drainPending() {
+        DispatchReport total = DispatchReport.EMPTY;
+        long afterId = 0;
+        Slice<OutboxMessage> page;
+        do {
+            page = outboxRepository.findDue(OutboxMessage.Status.PENDING, afterId, LocalDateTime.now(),
+                    PageRequest.ofSize(pageSize()));
+            if (!page.hasContent()) break;
+            afterId = page.getContent().get(page.getNumberOfElements() - 1).getId();
+
+            Map<Long, OutboxMessage> rows = page.stream()
+                    .collect(Collectors.toMap(OutboxMessage::getId, row -> row));
+            List<OutgoingMessage> batch = page.map(row -> new OutgoingMessage(row.getId(), row.getChatId(), row.getText()))
+                    .getContent();
+            total = total.plus(dispatcher.dispatch(batch, new NotificationDispatcher.DeliveryListener() {
+                @Override
+                public void delivered(OutgoingMessage message) {
+                    outboxRepository.mark(message.id(), OutboxMessage.Status.SENT, LocalDateTime.now(), null);
+                }
+
+                @Override
+                public void failed(OutgoingMessage message, FailureKind kind, String error) {
+                    String details = kind + ": " + error;
+                    if (details.length() > 512) details = details.substring(0, 512);
+                    OutboxMessage row = rows.get(message.id());
+                    int attempt = row.getAttempts() + 1;
+                    if (isTransient(kind) && attempt < maxDeliveries()) {
+                        // Лимит или сеть: сообщение остаётся в очереди, следующий проход возьмёт его после паузы
+                        outboxRepository.postpone(message.id(), attempt, LocalDateTime.now().plus(retryDelay(attempt)), details);
+                        return;
+                    }
+                    outboxRepository.mark(message.id(), OutboxMessage.Status.FAILED, LocalDateTime.now(), details);
+                    if (kind.isPermanent() && row.getUserId() != null
+                            && studentRepository.deactivate(row.getUserId(), LocalDateTime.now()) > 0) {
+                        // Иначе студент получал бы (и проваливал) каждую следующую рассылку
+                        log.info("User {} is unreachable in chat {} ({}), notifications disabled",
+                                row.getUserId(), message.chatId(), kind);
+                    }
+                }
+            }));
+        } while (page.hasNext() && !Thread.currentThread().isInterrupted());
+
+        if (total.attempted() > 0) log.info("Рассылка из outbox: {}", total);
+    }
+
+    private static boolean isTransient(FailureKind kind) {
+        return kind == FailureKind.RATE_LIMITED || kind == FailureKind.NETWORK;
+    }
+
+    private int maxDeliveries() {
+        return Math.max(1, properties.getNotifications().getOutboxMaxDeliveries());
+    }
+
+    private Duration retryDelay(int attempt) {
+        return Duration.ofMillis(Math.max(0, properties.getNotifications().getOutboxRetryDelay())).multipliedBy(attempt);
+    }
+
+    private record RenderKey(String group, String aliasFingerprint, boolean showCodes) {}
+
+    /**
+     * Состояние одного вызова {@link #enqueue}.
+     */
+    private static final class Batch {
+        private final String sourceKey;
+        private final Broadcast broadcast;
+        private final List<OutboxMessage> rows = new ArrayList<>();
+        private final Map<RenderKey, List<String>> renders = new HashMap<>();
+        private int queued;
+        private int recipients;
+
+        Batch(String sourceKey, Broadcast broadcast) {
+            this.sourceKey = sourceKey;
+            this.broadcast = broadcast;
+        }
+    }
+
+    private int pageSize() {
+        return Math.max(1, properties.getNotifications().getPageSize());
+    }
+}
@@ -0,0 +1,13 @@
+package pro.kaleert.uwubot.service.notification;
+
+/**
+ * Сообщение рассылки: HTML-текст для одного чата.
+ *
+ * @param id запись outbox, которую отмечает доставка; {@code null} до записи в outbox
+ */
+public record OutgoingMessage(Long id, Long chatId, String text) {
+
+    public OutgoingMessage(Long chatId, String text) {
+        this(null, chatId, text);
+    }
+}
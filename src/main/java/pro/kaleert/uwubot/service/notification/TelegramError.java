@@ -0,0 +1,64 @@
+package pro.kaleert.uwubot.service.notification;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.util.Optional;
+
+/**
+ * Ошибка Bot API в том виде, в котором её вернул Telegram: {@code error_code}, {@code description}
+ * и {@code parameters.retry_after}. Берётся из HTTP-статуса ответа или из JSON ответа в цепочке исключений
+ * клиента — по свободному тексту сообщения вид ошибки не угадывается.
+ *
+ * @param code        код ошибки (совпадает с HTTP-статусом ответа)
+ * @param description описание из ответа, например "Forbidden: bot was blocked by the user"; может быть пустым
+ * @param retryAfter  через сколько секунд можно повторить (только для 429), иначе {@code null}
+ */
+public record TelegramError(int code, String description, Long retryAfter) {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    /**
+     * Первая ошибка Bot API в цепочке причин {@code error}.
+     */
+    public static Optional<TelegramError> find(Throwable error) {
+        // Глубина ограничена на случай зацикленной цепочки причин
+        int depth = 0;
+        for (Throwable cause = error; cause != null && depth < 10; cause = cause.getCause(), depth++) {
+            Optional<TelegramError> found = of(cause);
+            if (found.isPresent()) return found;
+        }
+        return Optional.empty();
+    }
+
+    private static Optional<TelegramError> of(Throwable error) {
+        if (error instanceof RestClientResponseException response) {
+            TelegramError fromBody = parse(response.getResponseBodyAsString());
+            return Optional.of(fromBody != null
+                    ? fromBody
+                    : new TelegramError(response.getStatusCode().value(), response.getStatusText(), null));
+        }
+        return Optional.ofNullable(parse(error.getMessage()));
+    }
+
+    /**
+     * Ответ Bot API с ошибкой: {@code {"ok":false,"error_code":403,"description":"..."}}, возможно внутри текста.
+     */
+    static TelegramError parse(String text) {
+        if (text == null) return null;
+        int start = text.indexOf('{');
+        int end = text.lastIndexOf('}');
+        if (start < 0 || end <= start) return null;
+        try {
+            JsonNode body = JSON.readTree(text.substring(start, end + 1));
+            JsonNode code = body.get("error_code");
+            if (code == null || !code.canConvertToInt()) return null;
+            JsonNode retryAfter = body.path("parameters").get("retry_after");
+            return new TelegramError(code.asInt(), body.path("description").asText(""),
+                    retryAfter != null && retryAfter.canConvertToLong() ? retryAfter.asLong() : null);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package pro.kaleert.uwubot.service.notification;
+
+/**
+ * Общий лимит отправки: токены пополняются равномерно, {@code ratePerSecond} в секунду. Ёмкость ведра —
+ * один токен, без накопленного запаса: иначе после паузы в любую секунду уходило бы до двух лимитов.
+ * Токен резервируется сразу (баланс может уйти в минус), а ждать резервирующий поток
+ * должен сам, вне блокировки, — так виртуальные потоки не выстраиваются в очередь на мьютексе.
+ */
+final class TokenBucket {
+
+    private static final double CAPACITY = 1.0;
+
+    private final double ratePerNano;
+
+    private double tokens;
+    private long lastRefill;
+
+    TokenBucket(double ratePerSecond) {
+        this.ratePerNano = ratePerSecond / 1_000_000_000.0;
+        this.tokens = CAPACITY;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * @return сколько наносекунд подождать, прежде чем использовать зарезервированный токен
+     */
+    synchronized long reserve() {
+        long now = System.nanoTime();
+        tokens = Math.min(CAPACITY, tokens + (now - lastRefill) * ratePerNano);
+        lastRefill = now;
+        tokens -= 1;
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / ratePerNano);
+    }
+}
@@ -0,0 +1,198 @@
+package pro.kaleert.uwubot.service.parser;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.usermodel.XSSFCell;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTCell;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.STCellType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Неизменяемый снимок листа: текст ячеек построчно + индекс объединённых областей.
+ * Его строит либо DOM-модель POI ({@link #fromSheet}), либо потоковый {@link StreamingSheetReader};
+ * парсер, анализатор структуры и дамп работают уже только с сеткой, а книга POI закрывается сразу после чтения.
+ * <p>
+ * Текст ячеек приводится к одному виду в обоих случаях: строки обрезаются, числа и даты
+ * форматируются через {@link DataFormatter} так же, как их показывает Excel (1, а не 1.0).
+ */
+public final class CellGrid {
+
+    private final String sheetName;
+    private final String[][] rows;
+    private final String[][] styles;
+    private final MergedRegionIndex merges;
+
+    private CellGrid(String sheetName, String[][] rows, String[][] styles, MergedRegionIndex merges) {
+        this.sheetName = sheetName;
+        this.rows = rows;
+        this.styles = styles;
+        this.merges = merges;
+    }
+
+    public static CellGrid fromSheet(Sheet sheet) {
+        return fromSheet(sheet, null);
+    }
+
+    /**
+     * @param styleDescriber описание стиля ячейки для дампа (вызывается один раз на стиль);
+     *                       {@code null} — стили не сохраняются
+     */
+    public static CellGrid fromSheet(Sheet sheet, Function<Cell, String> styleDescriber) {
+        Builder builder = new Builder(sheet.getSheetName());
+        Map<Integer, String> sharedStrings = new HashMap<>();
+        Map<Short, String> styleNames = new HashMap<>();
+        for (Row row : sheet) {
+            int width = Math.max(0, row.getLastCellNum());
+            String[] cells = new String[width];
+            String[] cellStyles = (styleDescriber != null) ? new String[width] : null;
+            for (Cell cell : row) {
+                int sharedIndex = sharedStringIndex(cell);
+                cells[cell.getColumnIndex()] = (sharedIndex >= 0)
+                        ? sharedStrings.computeIfAbsent(sharedIndex, i -> builder.intern(builder.cellText(cell)))
+                        : builder.intern(builder.cellText(cell));
+                if (cellStyles != null && cell.getCellStyle() != null) {
+                    CellStyle style = cell.getCellStyle();
+                    cellStyles[cell.getColumnIndex()] = styleNames.computeIfAbsent(style.getIndex(),
+                            i -> builder.intern(styleDescriber.apply(cell)));
+                }
+            }
+            builder.setRow(row.getRowNum(), cells);
+            if (cellStyles != null) builder.setRowStyles(row.getRowNum(), cellStyles);
+        }
+        sheet.getMergedRegions().forEach(builder::addMergedRegion);
+        return builder.build();
+    }
+
+    public String sheetName() {
+        return sheetName;
+    }
+
+    public int lastRowNum() {
+        return rows.length - 1;
+    }
+
+    public boolean hasRow(int row) {
+        return row >= 0 && row < rows.length && rows[row] != null;
+    }
+
+    public int lastCellNum(int row) {
+        return hasRow(row) ? rows[row].length : 0;
+    }
+
+    public String text(int row, int col) {
+        if (!hasRow(row)) return "";
+        String[] cells = rows[row];
+        if (col < 0 || col >= cells.length || cells[col] == null) return "";
+        return cells[col];
+    }
+
+    public String mergedText(int row, int col) {
+        CellRangeAddress region = merges.regionAt(row, col);
+        if (region != null) return text(region.getFirstRow(), region.getFirstColumn());
+        return text(row, col);
+    }
+
+    public CellRangeAddress mergedRegion(int row, int col) {
+        return merges.regionAt(row, col);
+    }
+
+    public int mergedRegionCount() {
+        return merges.size();
+    }
+
+    /**
+     * @return описание стиля ячейки или "", если стили при чтении не сохранялись
+     */
+    public String style(int row, int col) {
+        if (styles == null || row < 0 || row >= styles.length || styles[row] == null) return "";
+        String[] cells = styles[row];
+        if (col < 0 || col >= cells.length || cells[col] == null) return "";
+        return cells[col];
+    }
+
+    /**
+     * Индекс строки в таблице shared strings XSSF или -1: одинаковые строки файла читаются один раз.
+     */
+    private static int sharedStringIndex(Cell cell) {
+        if (!(cell instanceof XSSFCell xssfCell) || cell.getCellType() != CellType.STRING) return -1;
+        CTCell ctCell = xssfCell.getCTCell();
+        if (ctCell.getT() != STCellType.S || !ctCell.isSetV()) return -1;
+        try {
+            return Integer.parseInt(ctCell.getV());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    static final class Builder {
+        private final String sheetName;
+        private final List<String[]> rows = new ArrayList<>();
+        private final List<String[]> styles = new ArrayList<>();
+        private final List<CellRangeAddress> regions = new ArrayList<>();
+        private final Map<String, String> pool = new HashMap<>();
+        // DataFormatter не потокобезопасен, поэтому свой на каждый лист
+        private final DataFormatter formatter = new DataFormatter();
+
+        Builder(String sheetName) {
+            this.sheetName = sheetName;
+        }
+
+        /**
+         * Текст ячейки DOM-модели в том же виде, в каком его отдаёт потоковое чтение:
+         * формулы — по закешированному результату, числа и даты — по формату ячейки.
+         */
+        String cellText(Cell cell) {
+            try {
+                CellType type = cell.getCellType() == CellType.FORMULA ? cell.getCachedFormulaResultType() : cell.getCellType();
+                return switch (type) {
+                    case STRING -> cell.getStringCellValue().trim();
+                    case NUMERIC -> formatter.formatRawCellContents(cell.getNumericCellValue(),
+                            cell.getCellStyle().getDataFormat(), cell.getCellStyle().getDataFormatString()).trim();
+                    case BOOLEAN -> cell.getBooleanCellValue() ? "TRUE" : "FALSE";
+                    default -> "";
+                };
+            } catch (Exception e) {
+                return "";
+            }
+        }
+
+        /**
+         * Одинаковый текст ячеек хранится в сетке одним экземпляром.
+         */
+        String intern(String text) {
+            if (text.isEmpty()) return "";
+            String existing = pool.putIfAbsent(text, text);
+            return existing != null ? existing : text;
+        }
+
+        void setRow(int row, String[] cells) {
+            while (rows.size() <= row) rows.add(null);
+            rows.set(row, cells);
+        }
+
+        void setRowStyles(int row, String[] cellStyles) {
+            while (styles.size() <= row) styles.add(null);
+            styles.set(row, cellStyles);
+        }
+
+        void addMergedRegion(CellRangeAddress region) {
+            regions.add(region);
+        }
+
+        CellGrid build() {
+            return new CellGrid(sheetName, rows.toArray(new String[0][]),
+                    styles.isEmpty() ? null : styles.toArray(new String[0][]),
+                    MergedRegionIndex.of(regions));
+        }
+    }
+}
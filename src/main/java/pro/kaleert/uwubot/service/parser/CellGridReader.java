@@ -0,0 +1,108 @@
+package pro.kaleert.uwubot.service.parser;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.springframework.stereotype.Component;
+import pro.kaleert.uwubot.config.UwuBotConfig;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Единственное место, где файл расписания декодируется POI. На выходе — {@link CellGrid} по каждому листу,
+ * книга и пакет закрываются до возврата, дальше с файлом работают только сетки.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CellGridReader {
+
+    private final UwuBotConfig properties;
+    private final StreamingSheetReader streamingReader;
+
+    public List<CellGrid> read(InputStream inputStream) throws Exception {
+        return read(inputStream, grids -> true);
+    }
+
+    /**
+     * Чтение с диска: zip открывается на месте (произвольный доступ к записям), без копии файла в памяти.
+     */
+    public List<CellGrid> read(File file, Predicate<List<CellGrid>> usable) throws Exception {
+        if (properties.getParser().getEngine() == UwuBotConfig.ParserEngine.STREAMING) {
+            if (FileMagic.valueOf(file) == FileMagic.OOXML) {
+                return readStreaming(file, usable);
+            }
+            log.warn("Streaming parser supports only xlsx, falling back to DOM");
+        }
+
+        try (Workbook workbook = WorkbookFactory.create(file, null, true)) {
+            return readSheets(workbook, null);
+        }
+    }
+
+    /**
+     * Поток сначала пишется во временный файл: из потока POI умеет открыть пакет только целиком в памяти.
+     *
+     * @param usable проверка результата потокового чтения; если она не прошла, файл перечитывается через DOM-модель
+     */
+    public List<CellGrid> read(InputStream inputStream, Predicate<List<CellGrid>> usable) throws Exception {
+        Path temp = Files.createTempFile("schedule-", ".xlsx");
+        try {
+            Files.copy(inputStream, temp, StandardCopyOption.REPLACE_EXISTING);
+            return read(temp.toFile(), usable);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Чтение для дампа: всегда через DOM, потому что потоковый обработчик POI не отдаёт стили ячеек.
+     */
+    public List<CellGrid> readWithStyles(File file, Function<Cell, String> styleDescriber) throws Exception {
+        try (Workbook workbook = WorkbookFactory.create(file, null, true)) {
+            return readSheets(workbook, styleDescriber);
+        }
+    }
+
+    private List<CellGrid> readStreaming(File file, Predicate<List<CellGrid>> usable) throws Exception {
+        OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ);
+        try {
+            List<CellGrid> grids = streamingReader.readSheets(pkg);
+            if (usable.test(grids)) return grids;
+        } finally {
+            // Пакет открыт только на чтение, сохранять в него нечего
+            pkg.revert();
+        }
+
+        log.warn("Layout not recognised by streaming parser, falling back to DOM");
+        try (Workbook workbook = WorkbookFactory.create(file, null, true)) {
+            return readSheets(workbook, null);
+        }
+    }
+
+    private List<CellGrid> readSheets(Workbook workbook, Function<Cell, String> styleDescriber) {
+        List<CellGrid> grids = new ArrayList<>();
+        for (Sheet sheet : workbook) {
+            try {
+                grids.add(CellGrid.fromSheet(sheet, styleDescriber));
+            } catch (Exception e) {
+                log.error("Failed to read sheet '{}'", sheet.getSheetName(), e);
+            }
+        }
+        return grids;
+    }
+}
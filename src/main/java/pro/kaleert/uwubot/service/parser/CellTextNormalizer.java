@@ -0,0 +1,41 @@
+package pro.kaleert.uwubot.service.parser;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Кеш нормализации текста ячеек на один парсинг.
+ * В файлах расписания предметы, аудитории и преподаватели повторяются сотни раз, поэтому
+ * каждая уникальная строка чистится один раз, а наружу отдаётся один канонический экземпляр:
+ * уроки с одинаковым предметом или преподавателем ссылаются на одну и ту же строку.
+ * Потокобезопасен — группы разбираются параллельно.
+ */
+final class CellTextNormalizer {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final ConcurrentHashMap<String, String> cleaned = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> canonical = new ConcurrentHashMap<>();
+
+    String clean(String raw) {
+        if (raw == null || raw.isEmpty()) return "";
+        return cleaned.computeIfAbsent(raw, r -> canonical(cleanUncached(r)));
+    }
+
+    /**
+     * Возвращает канонический экземпляр строки (например, собранной из нескольких ячеек).
+     */
+    String canonical(String text) {
+        String existing = canonical.putIfAbsent(text, text);
+        return existing != null ? existing : text;
+    }
+
+    static String cleanUncached(String text) {
+        text = text.replace('\u00A0', ' ').trim();
+        text = WHITESPACE.matcher(text).replaceAll(" ");
+
+        if (text.endsWith(".0")) text = text.substring(0, text.length() - 2);
+        if (text.equals("-") || text.equals("'") || text.equals("`") || text.equals(".")) return "";
+        return text;
+    }
+}
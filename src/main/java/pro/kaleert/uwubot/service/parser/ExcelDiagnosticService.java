@@ -1,5 +1,6 @@
 package pro.kaleert.uwubot.service.parser;
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.ss.util.CellAddress;
@@ -10,16 +11,20 @@ import org.springframework.stereotype.Service;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
-import java.io.InputStream;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class ExcelDiagnosticService {
 
-    public File createDump(InputStream inputStream) {
+    private final CellGridReader gridReader;
+    private final ExcelStructureAnalyzer structureAnalyzer;
+
+    public File createDump(File sourceFile) {
         File tempFile;
         try {
             tempFile = File.createTempFile("excel_debug_", ".txt");
@@ -27,67 +32,16 @@ public class ExcelDiagnosticService {
             throw new RuntimeException("Could not create temp file", e);
         }
 
-        try (Workbook workbook = WorkbookFactory.create(inputStream);
-             BufferedWriter writer = new BufferedWriter(new FileWriter(tempFile, StandardCharsets.UTF_8))) {
-
-            Sheet sheet = workbook.getSheetAt(0);
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(tempFile, StandardCharsets.UTF_8))) {
+            // Книга декодируется один раз, дальше дамп пишется по тем же сеткам, что видит парсер
+            List<CellGrid> grids = gridReader.readWithStyles(sourceFile, this::getStyleInfo);
 
             writer.write("=== EXCEL DEEP DUMP ===\n");
-            writer.write("Sheet: " + sheet.getSheetName() + "\n");
-            writer.write("Last Row Index: " + sheet.getLastRowNum() + "\n");
-            writer.write("Merged Regions: " + sheet.getNumMergedRegions() + "\n");
+            writer.write("Sheets: " + grids.size() + "\n");
             writer.write("=======================\n\n");
 
-            // Сканируем с запасом, чтобы найти скрытые данные
-            int maxRow = sheet.getLastRowNum() + 5;
-
-            for (int r = 0; r <= maxRow; r++) {
-                Row row = sheet.getRow(r);
-                if (row == null) {
-                    continue; // Пропускаем полностью пустые строки
-                }
-
-                // Строим буфер строки, чтобы записать её только если в ней есть данные
-                StringBuilder rowBuffer = new StringBuilder();
-                boolean hasData = false;
-
-                rowBuffer.append(String.format("--- [ROW %d] Height:%s ---\n", r, row.getHeight()));
-
-                // Сканируем первые 60 колонок (обычно расписание не шире)
-                int lastCell = Math.max(row.getLastCellNum(), 60);
-
-                for (int c = 0; c < lastCell; c++) {
-                    Cell cell = row.getCell(c);
-                    CellAddress addr = new CellAddress(r, c);
-                    
-                    String value = getCellText(cell);
-                    String mergeInfo = getMergeInfo(sheet, r, c);
-                    String styleInfo = getStyleInfo(cell);
-
-                    // Если ячейка не пустая, или объединена, или имеет стиль (фон/границы)
-                    if (!value.isBlank() || !mergeInfo.isEmpty() || !styleInfo.isEmpty()) {
-                        hasData = true;
-                        
-                        String safeValue = value.replace("\n", "\\n").replace("\r", "");
-                        
-                        // Формат: [C5] 'Значение' | MERGED: 2x1 | STYLE: {BOLD, RED}
-                        rowBuffer.append(String.format("   [%-4s] (c:%d) '%s'", 
-                                addr.formatAsString(), c, safeValue));
-
-                        if (!mergeInfo.isEmpty()) {
-                            rowBuffer.append(" | ").append(mergeInfo);
-                        }
-                        if (!styleInfo.isEmpty()) {
-                            rowBuffer.append(" | ").append(styleInfo);
-                        }
-                        rowBuffer.append("\n");
-                    }
-                }
-
-                if (hasData) {
-                    writer.write(rowBuffer.toString());
-                    writer.write("\n");
-                }
+            for (CellGrid grid : grids) {
+                writeSheet(writer, grid);
             }
 
             writer.write("\n=== END OF DUMP ===");
@@ -99,24 +53,71 @@ public class ExcelDiagnosticService {
         }
     }
 
-    private String getMergeInfo(Sheet sheet, int row, int col) {
-        for (int i = 0; i < sheet.getNumMergedRegions(); i++) {
-            CellRangeAddress region = sheet.getMergedRegion(i);
-            if (region.isInRange(row, col)) {
-                if (region.getFirstRow() == row && region.getFirstColumn() == col) {
-                    // Это начало объединенной ячейки
-                    int rows = region.getLastRow() - region.getFirstRow() + 1;
-                    int cols = region.getLastColumn() - region.getFirstColumn() + 1;
-                    return String.format("MERGE_START[%dx%d]->%s", rows, cols, 
-                            new CellAddress(region.getLastRow(), region.getLastColumn()).formatAsString());
-                } else {
-                    // Это часть объединенной ячейки (обычно пустая)
-                    return String.format("MERGED_IN(%s)", 
-                            new CellAddress(region.getFirstRow(), region.getFirstColumn()).formatAsString());
+    private void writeSheet(BufferedWriter writer, CellGrid grid) throws IOException {
+        writer.write("=== SHEET: " + grid.sheetName() + " ===\n");
+        writer.write("Last Row Index: " + grid.lastRowNum() + "\n");
+        writer.write("Merged Regions: " + grid.mergedRegionCount() + "\n");
+        writer.write("Structure: " + structureAnalyzer.analyze(grid) + "\n\n");
+
+        for (int r = 0; r <= grid.lastRowNum(); r++) {
+            if (!grid.hasRow(r)) {
+                continue; // Пропускаем полностью пустые строки
+            }
+
+            // Строим буфер строки, чтобы записать её только если в ней есть данные
+            StringBuilder rowBuffer = new StringBuilder();
+            boolean hasData = false;
+
+            rowBuffer.append(String.format("--- [ROW %d] ---\n", r));
+
+            for (int c = 0; c < grid.lastCellNum(r); c++) {
+                CellAddress addr = new CellAddress(r, c);
+
+                String value = grid.text(r, c);
+                String mergeInfo = getMergeInfo(grid, r, c);
+                String styleInfo = grid.style(r, c);
+
+                // Если ячейка не пустая, или объединена, или имеет стиль (фон/границы)
+                if (!value.isBlank() || !mergeInfo.isEmpty() || !styleInfo.isEmpty()) {
+                    hasData = true;
+
+                    String safeValue = value.replace("\n", "\\n").replace("\r", "");
+
+                    // Формат: [C5] 'Значение' | MERGED: 2x1 | STYLE: {BOLD, RED}
+                    rowBuffer.append(String.format("   [%-4s] (c:%d) '%s'",
+                            addr.formatAsString(), c, safeValue));
+
+                    if (!mergeInfo.isEmpty()) {
+                        rowBuffer.append(" | ").append(mergeInfo);
+                    }
+                    if (!styleInfo.isEmpty()) {
+                        rowBuffer.append(" | ").append(styleInfo);
+                    }
+                    rowBuffer.append("\n");
                 }
             }
+
+            if (hasData) {
+                writer.write(rowBuffer.toString());
+                writer.write("\n");
+            }
         }
-        return "";
+        writer.write("\n");
+    }
+
+    private String getMergeInfo(CellGrid grid, int row, int col) {
+        CellRangeAddress region = grid.mergedRegion(row, col);
+        if (region == null) return "";
+        if (region.getFirstRow() == row && region.getFirstColumn() == col) {
+            // Это начало объединенной ячейки
+            int rows = region.getLastRow() - region.getFirstRow() + 1;
+            int cols = region.getLastColumn() - region.getFirstColumn() + 1;
+            return String.format("MERGE_START[%dx%d]->%s", rows, cols,
+                    new CellAddress(region.getLastRow(), region.getLastColumn()).formatAsString());
+        }
+        // Это часть объединенной ячейки (обычно пустая)
+        return String.format("MERGED_IN(%s)",
+                new CellAddress(region.getFirstRow(), region.getFirstColumn()).formatAsString());
     }
 
     private String getStyleInfo(Cell cell) {
@@ -158,30 +159,4 @@ public class ExcelDiagnosticService {
         if (props.isEmpty()) return "";
         return "{" + String.join(",", props) + "}";
     }
-
-    private String getCellText(Cell cell) {
-        if (cell == null) return "";
-        try {
-            return switch (cell.getCellType()) {
-                case STRING -> cell.getStringCellValue().trim();
-                case NUMERIC -> {
-                    if (DateUtil.isCellDateFormatted(cell)) {
-                        yield cell.getLocalDateTimeCellValue().toString();
-                    }
-                    yield String.valueOf(cell.getNumericCellValue());
-                }
-                case BOOLEAN -> String.valueOf(cell.getBooleanCellValue());
-                case FORMULA -> {
-                    try {
-                        yield "FORMULA=" + cell.getCellFormula() + " -> " + cell.getStringCellValue();
-                    } catch (Exception e) {
-                        yield "FORMULA=" + cell.getCellFormula() + " -> " + cell.getNumericCellValue();
-                    }
-                }
-                default -> "";
-            };
-        } catch (Exception e) {
-            return "[ERR]";
-        }
-    }
 }
\ No newline at end of file
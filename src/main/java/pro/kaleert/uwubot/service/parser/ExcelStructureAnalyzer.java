@@ -1,7 +1,6 @@
 package pro.kaleert.uwubot.service.parser;
 
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.ss.util.CellRangeAddress;
 import org.springframework.stereotype.Component;
 
@@ -14,23 +13,21 @@ public class ExcelStructureAnalyzer {
 
     private static final Pattern GROUP_NAME_PATTERN = Pattern.compile("^[А-ЯA-Zа-яa-z]{1,3}[- ]?\\d{2,4}[а-я]?$");
     private static final Pattern DAY_PATTERN = Pattern.compile(".*(ПОНЕДЕЛЬНИК|ВТОРНИК|СРЕДА|ЧЕТВЕРГ|ПЯТНИЦА|СУББОТА).*", Pattern.CASE_INSENSITIVE);
+    private static final Pattern TIME_PATTERN = Pattern.compile(".*\\d{1,2}[:.]\\d{2}.*");
 
-    public FileStructure analyze(Workbook workbook) {
-        Sheet sheet = workbook.getSheetAt(0);
+    public FileStructure analyze(CellGrid grid) {
         FileStructure structure = new FileStructure();
+        structure.setSheetName(grid.sheetName());
         
-        for (Row row : sheet) {
-            if (row.getRowNum() > 20) break; 
+        for (int r = 0; r <= Math.min(20, grid.lastRowNum()); r++) {
+            if (!grid.hasRow(r)) continue;
 
-            for (Cell cell : row) {
-                String text = getCellText(cell).trim();
+            for (int c = 0; c < grid.lastCellNum(r); c++) {
+                String text = grid.text(r, c);
                 
                 if (GROUP_NAME_PATTERN.matcher(text).matches()) {
-                    int colIndex = cell.getColumnIndex();
-                    int colspan = getColSpan(sheet, row.getRowNum(), colIndex);
-                    
-                    structure.addGroup(text, colIndex, colspan);
-                    structure.setHeaderRowIndex(row.getRowNum());
+                    structure.addGroup(text, c, getColSpan(grid, r, c));
+                    structure.setHeaderRowIndex(r);
                 }
             }
             
@@ -39,20 +36,18 @@ public class ExcelStructureAnalyzer {
 
         if (structure.getHeaderRowIndex() != -1) {
             int startRow = structure.getHeaderRowIndex() + 1;
-            for (int r = startRow; r < Math.min(startRow + 100, sheet.getLastRowNum()); r++) {
-                Row row = sheet.getRow(r);
-                if (row == null) continue;
+            for (int r = startRow; r < Math.min(startRow + 100, grid.lastRowNum()); r++) {
+                if (!grid.hasRow(r)) continue;
 
                 for (int c = 0; c < 5; c++) {
-                    Cell cell = row.getCell(c);
-                    String text = getCellText(cell).trim().toUpperCase();
+                    String text = grid.text(r, c).toUpperCase();
 
                     if (structure.getDayColumnIndex() == -1 && DAY_PATTERN.matcher(text).matches()) {
                         structure.setDayColumnIndex(c);
                         log.info("Found DAY column at index: {} (value: '{}')", c, text);
                     }
 
-                    if (structure.getTimeColumnIndex() == -1 && text.matches(".*\\d{1,2}[:.]\\d{2}.*")) {
+                    if (structure.getTimeColumnIndex() == -1 && TIME_PATTERN.matcher(text).matches()) {
                         structure.setTimeColumnIndex(c);
                         log.info("Found TIME column at index: {} (value: '{}')", c, text);
                     }
@@ -76,43 +71,14 @@ public class ExcelStructureAnalyzer {
         return structure;
     }
 
-    public String getCellText(Cell cell) {
-        if (cell == null) return "";
-        try {
-            return switch (cell.getCellType()) {
-                case STRING -> cell.getStringCellValue();
-                case NUMERIC -> {
-                    if (DateUtil.isCellDateFormatted(cell)) {
-                        yield cell.getLocalDateTimeCellValue().toString();
-                    }
-                    yield String.valueOf((int) cell.getNumericCellValue());
-                }
-                case BOOLEAN -> String.valueOf(cell.getBooleanCellValue());
-                case FORMULA -> {
-                    try {
-                        yield cell.getStringCellValue();
-                    } catch (Exception e) {
-                        yield String.valueOf(cell.getNumericCellValue());
-                    }
-                }
-                default -> "";
-            };
-        } catch (Exception e) {
-            return "";
-        }
-    }
-
-    private int getColSpan(Sheet sheet, int rowIdx, int colIdx) {
-        for (CellRangeAddress region : sheet.getMergedRegions()) {
-            if (region.isInRange(rowIdx, colIdx)) {
-                return region.getLastColumn() - region.getFirstColumn() + 1;
-            }
-        }
-        return 1;
+    private int getColSpan(CellGrid grid, int rowIdx, int colIdx) {
+        CellRangeAddress region = grid.mergedRegion(rowIdx, colIdx);
+        return region != null ? region.getLastColumn() - region.getFirstColumn() + 1 : 1;
     }
 
     @lombok.Data
     public static class FileStructure {
+        private String sheetName;
         private int headerRowIndex = -1;
         private int dayColumnIndex = -1;
         private int timeColumnIndex = -1;
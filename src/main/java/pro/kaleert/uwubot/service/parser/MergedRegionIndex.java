@@ -0,0 +1,78 @@
+package pro.kaleert.uwubot.service.parser;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+
+import java.util.List;
+
+/**
+ * Сетка "ячейка -> объединённая область" для одного листа.
+ * Строится один раз за парсинг, после чего поиск региона для (row, col) занимает O(1)
+ * вместо перебора всех {@link CellRangeAddress} на каждую ячейку.
+ * <p>
+ * В ячейке хранится номер региона (+1, 0 — не объединена), а каждая строка индекса
+ * заканчивается на последней объединённой колонке этой строки, а не на ширине листа.
+ */
+public final class MergedRegionIndex {
+
+    private static final MergedRegionIndex EMPTY = new MergedRegionIndex(new CellRangeAddress[0], new int[0][]);
+
+    private final CellRangeAddress[] regions;
+    private final int[][] owners;
+
+    private MergedRegionIndex(CellRangeAddress[] regions, int[][] owners) {
+        this.regions = regions;
+        this.owners = owners;
+    }
+
+    public static MergedRegionIndex of(Sheet sheet) {
+        return of(sheet.getMergedRegions());
+    }
+
+    public static MergedRegionIndex of(List<CellRangeAddress> regions) {
+        if (regions.isEmpty()) return EMPTY;
+
+        int maxRow = 0;
+        for (CellRangeAddress region : regions) {
+            maxRow = Math.max(maxRow, region.getLastRow());
+        }
+
+        int[] rowWidth = new int[maxRow + 1];
+        for (CellRangeAddress region : regions) {
+            for (int r = region.getFirstRow(); r <= region.getLastRow(); r++) {
+                rowWidth[r] = Math.max(rowWidth[r], region.getLastColumn() + 1);
+            }
+        }
+
+        int[][] owners = new int[maxRow + 1][];
+        for (int i = 0; i < regions.size(); i++) {
+            CellRangeAddress region = regions.get(i);
+            for (int r = region.getFirstRow(); r <= region.getLastRow(); r++) {
+                int[] row = owners[r];
+                if (row == null) {
+                    row = new int[rowWidth[r]];
+                    owners[r] = row;
+                }
+                for (int c = region.getFirstColumn(); c <= region.getLastColumn(); c++) {
+                    // Как и при линейном поиске, побеждает первый регион из списка
+                    if (row[c] == 0) row[c] = i + 1;
+                }
+            }
+        }
+        return new MergedRegionIndex(regions.toArray(new CellRangeAddress[0]), owners);
+    }
+
+    /**
+     * @return регион, которому принадлежит ячейка, или {@code null}, если ячейка не объединена
+     */
+    public CellRangeAddress regionAt(int row, int col) {
+        if (row < 0 || col < 0 || row >= owners.length) return null;
+        int[] cols = owners[row];
+        if (cols == null || col >= cols.length || cols[col] == 0) return null;
+        return regions[cols[col] - 1];
+    }
+
+    public int size() {
+        return regions.length;
+    }
+}
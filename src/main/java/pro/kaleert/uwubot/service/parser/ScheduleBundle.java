@@ -2,11 +2,29 @@ package pro.kaleert.uwubot.service.parser;
 
 import pro.kaleert.uwubot.entity.Lesson;
 import java.time.LocalDate;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+/**
+ * @param lessons          уроки разобранных групп (группы из {@code unchangedGroups} сюда не входят)
+ * @param blockHashes      отпечатки блоков колонок всех групп файла
+ * @param unchangedGroups  группы, чей блок совпал с прошлым отпечатком и не разбирался
+ * @param contentHashes    отпечатки содержимого разобранных групп ({@link ScheduleParserService#contentHash})
+ * @param failedSheets     сколько листов не разобралось; их группы в файле есть, но в бандл не попали
+ */
 public record ScheduleBundle(
     List<Lesson> lessons, 
     String dateRangeString,
     LocalDate weekStart,
-    String bellSchedule
-) {}
\ No newline at end of file
+    String bellSchedule,
+    Map<String, String> blockHashes,
+    Set<String> unchangedGroups,
+    Map<String, String> contentHashes,
+    int failedSheets
+) {
+    public ScheduleBundle(List<Lesson> lessons, String dateRangeString, LocalDate weekStart, String bellSchedule) {
+        this(lessons, dateRangeString, weekStart, bellSchedule, Collections.emptyMap(), Collections.emptySet(), Collections.emptyMap(), 0);
+    }
+}
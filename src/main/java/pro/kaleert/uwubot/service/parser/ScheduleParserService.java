@@ -2,13 +2,18 @@ package pro.kaleert.uwubot.service.parser;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.ss.util.CellRangeAddress;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+import pro.kaleert.uwubot.config.UwuBotConfig;
 import pro.kaleert.uwubot.entity.Lesson;
+import pro.kaleert.uwubot.entity.LessonPart;
+import pro.kaleert.uwubot.util.ScheduleUtils;
 import pro.kaleert.uwubot.util.TextNormalizer;
 
+import java.io.File;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -16,6 +21,7 @@ import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -25,127 +31,372 @@ public class ScheduleParserService {
     private static final Pattern DATE_RANGE_PATTERN = Pattern.compile("(\\d{2}\\.\\d{2}\\.\\d{4})");
     private static final Pattern GROUP_PATTERN = Pattern.compile("^[А-ЯA-Zа-я]{1,2}[- ]?\\d{2,4}[а-я]?$");
 
+    // Меняется вместе с логикой извлечения уроков, чтобы старые отпечатки блоков не совпали с новыми
+    private static final int BLOCK_FORMAT_VERSION = 3;
+
+    private final UwuBotConfig properties;
+    private final CellGridReader gridReader;
+
     public ScheduleBundle parse(InputStream inputStream) {
+        return parse(inputStream, Collections.emptyMap());
+    }
+
+    /**
+     * @param knownBlocks отпечатки блоков колонок групп с прошлого обновления. Группы, чей блок
+     *                    не изменился, заново не разбираются и попадают в {@link ScheduleBundle#unchangedGroups()}
+     */
+    public ScheduleBundle parse(InputStream inputStream, Map<String, String> knownBlocks) {
+        List<CellGrid> grids;
+        try {
+            grids = gridReader.read(inputStream, this::hasSchedule);
+        } catch (Exception e) {
+            log.error("Parsing error", e);
+            throw new RuntimeException(e);
+        }
+        return parse(grids, knownBlocks);
+    }
+
+    /**
+     * Разбор скачанного файла: книга читается с диска на месте, без копии в памяти.
+     */
+    public ScheduleBundle parse(File file, Map<String, String> knownBlocks) {
+        List<CellGrid> grids;
+        try {
+            grids = gridReader.read(file, this::hasSchedule);
+        } catch (Exception e) {
+            log.error("Parsing error", e);
+            throw new RuntimeException(e);
+        }
+        return parse(grids, knownBlocks);
+    }
+
+    /**
+     * Разбор уже прочитанного файла: сетки можно переиспользовать, не декодируя книгу повторно.
+     */
+    public ScheduleBundle parse(List<CellGrid> grids, Map<String, String> knownBlocks) {
+        ScheduleBundle bundle = parseSheets(grids, knownBlocks);
+        return bundle != null ? bundle : emptyBundle();
+    }
+
+    private boolean hasSchedule(List<CellGrid> grids) {
+        return grids.stream().anyMatch(grid -> findHeaderRow(grid) != -1);
+    }
+
+    /**
+     * Разные курсы/корпуса бывают на разных листах. Листы разбираются параллельно и независимо:
+     * ошибка в одном листе не выбрасывает расписание остальных. Число упавших листов попадает в бандл:
+     * группы с них нельзя считать пропавшими из файла.
+     *
+     * @return общее расписание или {@code null}, если ни на одном листе расписания не нашлось
+     */
+    private ScheduleBundle parseSheets(List<CellGrid> grids, Map<String, String> knownBlocks) {
+        Stream<CellGrid> sheetStream = properties.getParser().isParallel() ? grids.parallelStream() : grids.stream();
+        List<SheetOutcome> outcomes = sheetStream.map(grid -> extractSheet(grid, knownBlocks)).toList();
+
+        List<SheetSchedule> schedules = outcomes.stream()
+                .map(SheetOutcome::schedule)
+                .filter(Objects::nonNull)
+                .toList();
+
+        if (schedules.isEmpty()) {
+            // Если упали все листы — это ошибка файла, а не "расписания нет"
+            for (SheetOutcome outcome : outcomes) {
+                if (outcome.error() != null) throw outcome.error();
+            }
+            return null;
+        }
+        int failedSheets = (int) outcomes.stream().filter(outcome -> outcome.error() != null).count();
+        return merge(schedules, failedSheets);
+    }
+
+    private SheetOutcome extractSheet(CellGrid grid, Map<String, String> knownBlocks) {
+        long start = System.nanoTime();
+        try {
+            SheetSchedule schedule = extract(grid, knownBlocks);
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            if (schedule == null) {
+                log.debug("Sheet '{}' has no schedule ({} ms)", grid.sheetName(), elapsedMs);
+            } else {
+                log.info("Sheet '{}': {} lessons in {} ms", grid.sheetName(), schedule.lessons().size(), elapsedMs);
+            }
+            return new SheetOutcome(schedule, null);
+        } catch (RuntimeException e) {
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            log.error("Sheet '{}' failed after {} ms", grid.sheetName(), elapsedMs, e);
+            return new SheetOutcome(null, e);
+        }
+    }
+
+    private ScheduleBundle merge(List<SheetSchedule> schedules, int failedSheets) {
         List<Lesson> lessons = new ArrayList<>();
-        String dateRangeString = "Unknown";
-        LocalDate weekStart = LocalDate.now();
         Map<Integer, String> bellMap = new TreeMap<>();
+        Map<String, String> blockHashes = new LinkedHashMap<>();
+        Set<String> unchangedGroups = new HashSet<>();
+        String dateRangeString = null;
+        LocalDate weekStart = null;
 
-        try (Workbook workbook = WorkbookFactory.create(inputStream)) {
-            Sheet sheet = workbook.getSheetAt(0);
-
-            for (int r = 0; r < 5; r++) {
-                String rowText = getMergedValue(sheet, r, 0);
-                Matcher m = DATE_RANGE_PATTERN.matcher(rowText);
-                if (m.find()) {
-                    dateRangeString = rowText.trim();
-                    try {
-                        weekStart = LocalDate.parse(m.group(1), DateTimeFormatter.ofPattern("dd.MM.yyyy"));
-                    } catch (Exception ignored) {}
-                    break;
-                }
+        for (SheetSchedule schedule : schedules) {
+            lessons.addAll(schedule.lessons());
+            schedule.bells().forEach(bellMap::putIfAbsent);
+            // Группа на нескольких листах получает общий отпечаток, который никогда не совпадёт
+            // с отпечатком одного листа, — такие группы всегда разбираются целиком
+            schedule.blockHashes().forEach((group, hash) ->
+                    blockHashes.merge(group, hash, (a, b) -> DigestUtils.md5DigestAsHex((a + b).getBytes(StandardCharsets.UTF_8))));
+            unchangedGroups.addAll(schedule.unchangedGroups());
+            if (dateRangeString == null && schedule.dateRange() != null) {
+                dateRangeString = schedule.dateRange();
+                weekStart = schedule.weekStart();
             }
+        }
 
-            int headerRowIndex = findHeaderRow(sheet);
-            if (headerRowIndex == -1) return new ScheduleBundle(Collections.emptyList(), "Error", weekStart, "");
+        String bellSchedule = bellMap.entrySet().stream()
+                .map(e -> e.getKey() + ". " + e.getValue())
+                .collect(Collectors.joining("\n"));
 
-            Map<String, Integer> groupsMap = new LinkedHashMap<>();
-            Row headerRow = sheet.getRow(headerRowIndex);
-            for (int c = 0; c < headerRow.getLastCellNum(); c++) {
-                String text = getCellText(headerRow.getCell(c));
-                if (GROUP_PATTERN.matcher(text).matches()) {
-                    groupsMap.put(TextNormalizer.normalizeGroup(text), c);
-                }
+        Map<String, List<Lesson>> byGroup = lessons.stream().collect(Collectors.groupingBy(Lesson::getGroupName));
+        Map<String, String> contentHashes = new HashMap<>();
+        for (String group : blockHashes.keySet()) {
+            if (unchangedGroups.contains(group)) continue;
+            contentHashes.put(group, contentHash(byGroup.getOrDefault(group, Collections.emptyList())));
+        }
+
+        return new ScheduleBundle(
+                lessons,
+                dateRangeString != null ? dateRangeString : "Unknown",
+                weekStart != null ? weekStart : LocalDate.now(),
+                bellSchedule,
+                blockHashes,
+                unchangedGroups,
+                contentHashes,
+                failedSheets
+        );
+    }
+
+    private ScheduleBundle emptyBundle() {
+        return new ScheduleBundle(Collections.emptyList(), "Error", LocalDate.now(), "");
+    }
+
+    /**
+     * @return расписание листа или {@code null}, если на листе не нашлась строка с группами
+     */
+    private SheetSchedule extract(CellGrid grid, Map<String, String> knownBlocks) {
+        String dateRangeString = null;
+        LocalDate weekStart = null;
+        Map<Integer, String> bellMap = new TreeMap<>();
+
+        for (int r = 0; r < 5; r++) {
+            String rowText = grid.mergedText(r, 0);
+            Matcher m = DATE_RANGE_PATTERN.matcher(rowText);
+            if (m.find()) {
+                dateRangeString = rowText.trim();
+                try {
+                    weekStart = LocalDate.parse(m.group(1), DateTimeFormatter.ofPattern("dd.MM.yyyy"));
+                } catch (Exception ignored) {}
+                break;
             }
+        }
 
-            int startRow = headerRowIndex + 2; 
-            for (int r = startRow; r <= sheet.getLastRowNum(); r++) {
-                Row row = sheet.getRow(r);
-                if (row == null) continue;
+        int headerRowIndex = findHeaderRow(grid);
+        if (headerRowIndex == -1) return null;
 
-                String dayText = getMergedValue(sheet, r, 0);
-                String lessonNumText = getMergedValue(sheet, r, 1);
-                String timeText = getMergedValue(sheet, r, 2);
+        CellTextNormalizer normalizer = new CellTextNormalizer();
 
-                DayOfWeek day = parseDay(dayText);
-                int lessonNum = parseLessonNum(lessonNumText);
+        Map<String, Integer> groupsMap = new LinkedHashMap<>();
+        for (int c = 0; c < grid.lastCellNum(headerRowIndex); c++) {
+            String text = grid.text(headerRowIndex, c);
+            if (GROUP_PATTERN.matcher(text).matches()) {
+                groupsMap.put(TextNormalizer.normalizeGroup(text), c);
+            }
+        }
 
-                if (day == null || lessonNum == 0) continue;
-                if (!timeText.isBlank()) bellMap.putIfAbsent(lessonNum, clean(timeText));
+        List<ScheduleRow> scheduleRows = new ArrayList<>();
+        int startRow = headerRowIndex + 2; 
+        for (int r = startRow; r <= grid.lastRowNum(); r++) {
+            if (!grid.hasRow(r)) continue;
 
-                for (Map.Entry<String, Integer> entry : groupsMap.entrySet()) {
-                    String groupName = entry.getKey();
-                    int col = entry.getValue();
+            String dayText = grid.mergedText(r, 0);
+            String lessonNumText = grid.mergedText(r, 1);
+            String timeText = grid.mergedText(r, 2);
 
-                    String s1 = clean(getCellText(sheet, r, col));
-                    String r1 = clean(getCellText(sheet, r, col + 1));
-                    String s2 = clean(getCellText(sheet, r, col + 2));
-                    String r2 = clean(getCellText(sheet, r, col + 3));
-                    
-                    String t1 = clean(getCellText(sheet, r + 1, col));
-                    String t2 = clean(getCellText(sheet, r + 1, col + 2));
+            DayOfWeek day = parseDay(dayText);
+            int lessonNum = parseLessonNum(grid, r, lessonNumText, normalizer.clean(lessonNumText));
 
-                    if (s1.isEmpty() && s2.isEmpty()) continue;
+            if (day == null || lessonNum == 0) continue;
+            if (!timeText.isBlank()) bellMap.putIfAbsent(lessonNum, normalizer.clean(timeText));
+            scheduleRows.add(new ScheduleRow(r, day, lessonNum));
+        }
 
-                    boolean isWideSplit = false;
-                    if (!s1.isEmpty() && r1.isEmpty() && s2.isEmpty() && !r2.isEmpty()) {
-                        r1 = r2; 
-                        isWideSplit = true;
+        // Блоки колонок групп не зависят друг от друга: сетка только читается,
+        // поэтому группы разбираются параллельно, а результат собирается в исходном порядке (строка, группа)
+        List<Map.Entry<String, Integer>> groups = new ArrayList<>(groupsMap.entrySet());
+        Stream<Map.Entry<String, Integer>> groupStream = properties.getParser().isParallel()
+                ? groups.parallelStream()
+                : groups.stream();
+        List<GroupBlock> blocks = groupStream
+                .map(entry -> {
+                    String hash = fingerprintBlock(grid, normalizer, entry.getValue(), scheduleRows);
+                    if (hash.equals(knownBlocks.get(entry.getKey()))) {
+                        return new GroupBlock(entry.getKey(), hash, null);
                     }
+                    return new GroupBlock(entry.getKey(), hash,
+                            extractGroup(grid, normalizer, entry.getKey(), entry.getValue(), scheduleRows));
+                })
+                .toList();
 
-                    boolean isMerged = isMergedAcross(sheet, r, col);
-                    boolean isIdentical = s1.equals(s2) && r1.equals(r2) && !s1.isEmpty();
-                    
-                    String finalLesson;
-                    String finalTeacher;
-
-                    if (isMerged || isIdentical || isWideSplit) {
-                        finalLesson = formatItem(s1.isEmpty() ? s2 : s1, r1.isEmpty() ? r2 : r1);
-                        finalTeacher = s1.isEmpty() ? t2 : t1;
-                    } 
-                    else {
-                        String part1 = formatItem(s1, r1);
-                        String part2;
-
-                        if (!s1.isEmpty() && s1.equals(s2)) {
-                            if (!r2.isEmpty()) {
-                                part2 = "[" + r2 + "]";
-                            } else {
-                                part2 = s2; 
-                            }
-                        } else {
-                            part2 = formatItem(s2, r2);
-                        }
-                        
-                        finalLesson = part1 + " / " + part2;
-                        
-                        if (t1.equals(t2) && !t1.isEmpty()) finalTeacher = t1;
-                        else {
-                             String teach1 = t1.isEmpty() ? "—" : t1;
-                             String teach2 = t2.isEmpty() ? "—" : t2;
-                             finalTeacher = teach1 + " / " + teach2;
-                        }
-                    }
+        List<Lesson> lessons = new ArrayList<>();
+        for (int i = 0; i < scheduleRows.size(); i++) {
+            for (GroupBlock block : blocks) {
+                if (block.lessons() != null && block.lessons()[i] != null) lessons.add(block.lessons()[i]);
+            }
+        }
 
-                    Lesson lesson = new Lesson();
-                    lesson.setGroupName(groupName);
-                    lesson.setDayOfWeek(day);
-                    lesson.setLessonNumber(lessonNum);
-                    lesson.setRawText(finalLesson);
-                    lesson.setTeacher(finalTeacher);
-                    lessons.add(lesson);
+        Map<String, String> blockHashes = new LinkedHashMap<>();
+        Set<String> unchangedGroups = new HashSet<>();
+        for (GroupBlock block : blocks) {
+            blockHashes.put(block.groupName(), block.hash());
+            if (block.lessons() == null) unchangedGroups.add(block.groupName());
+        }
+
+        return new SheetSchedule(lessons, dateRangeString, weekStart, bellMap, blockHashes, unchangedGroups);
+    }
+
+    /**
+     * Отпечаток содержимого уроков группы: не зависит от порядка уроков и от того, как блок свёрстан в файле,
+     * поэтому совпадает, если после переразметки или пересохранения файла уроки остались теми же.
+     * Считается по тем же полям, что и {@link Lesson#equals}: части (first/second) выводятся из текста и
+     * у строк, сохранённых до их появления, пусты — с ними отпечаток таких строк не совпал бы со свежим разбором.
+     */
+    public static String contentHash(Collection<Lesson> lessons) {
+        List<Lesson> sorted = new ArrayList<>(lessons);
+        sorted.sort(Comparator.comparing(Lesson::getDayOfWeek).thenComparingInt(Lesson::getLessonNumber));
+        StringBuilder sb = new StringBuilder(sorted.size() * 96);
+        for (Lesson lesson : sorted) {
+            sb.append(lesson.getDayOfWeek()).append(':').append(lesson.getLessonNumber())
+                    .append('\u0001').append(lesson.getRawText())
+                    .append('\u0001').append(lesson.getTeacher())
+                    .append('\n');
+        }
+        return DigestUtils.md5DigestAsHex(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Отпечаток блока колонок группы: нормализованный текст её четырёх колонок в строках пар
+     * и строках преподавателей, объединения и ключи строк (день, номер пары).
+     */
+    private String fingerprintBlock(CellGrid grid, CellTextNormalizer normalizer, int col, List<ScheduleRow> scheduleRows) {
+        StringBuilder sb = new StringBuilder(scheduleRows.size() * 64);
+        sb.append(BLOCK_FORMAT_VERSION).append('\n');
+        for (ScheduleRow row : scheduleRows) {
+            int r = row.rowIndex();
+            sb.append(row.day()).append(':').append(row.lessonNumber()).append(':').append(isMergedAcross(grid, r, col));
+            for (int c = col; c < col + 4; c++) {
+                sb.append('\u0001').append(normalizer.clean(grid.text(r, c)));
+                sb.append('\u0001').append(normalizer.clean(grid.text(r + 1, c)));
+            }
+            sb.append('\n');
+        }
+        return DigestUtils.md5DigestAsHex(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Lesson[] extractGroup(CellGrid grid, CellTextNormalizer normalizer, String groupName, int col, List<ScheduleRow> scheduleRows) {
+        Lesson[] result = new Lesson[scheduleRows.size()];
+        for (int i = 0; i < scheduleRows.size(); i++) {
+            ScheduleRow row = scheduleRows.get(i);
+            int r = row.rowIndex();
+
+            String s1 = normalizer.clean(grid.text(r, col));
+            String r1 = normalizer.clean(grid.text(r, col + 1));
+            String s2 = normalizer.clean(grid.text(r, col + 2));
+            String r2 = normalizer.clean(grid.text(r, col + 3));
+            
+            String t1 = normalizer.clean(grid.text(r + 1, col));
+            String t2 = normalizer.clean(grid.text(r + 1, col + 2));
+
+            if (s1.isEmpty() && s2.isEmpty()) continue;
+
+            boolean isWideSplit = false;
+            if (!s1.isEmpty() && r1.isEmpty() && s2.isEmpty() && !r2.isEmpty()) {
+                r1 = r2; 
+                isWideSplit = true;
+            }
+
+            boolean isMerged = isMergedAcross(grid, r, col);
+            boolean isIdentical = s1.equals(s2) && r1.equals(r2) && !s1.isEmpty();
+            
+            String finalLesson;
+            String finalTeacher;
+            LessonPart first;
+            LessonPart second = null;
+
+            if (isMerged || isIdentical || isWideSplit) {
+                finalLesson = formatItem(s1.isEmpty() ? s2 : s1, r1.isEmpty() ? r2 : r1);
+                finalTeacher = s1.isEmpty() ? t2 : t1;
+                first = toPart(normalizer, s1.isEmpty() ? s2 : s1, r1.isEmpty() ? r2 : r1, finalTeacher);
+            } 
+            else {
+                String part1 = formatItem(s1, r1);
+                String part2;
+
+                if (!s1.isEmpty() && s1.equals(s2)) {
+                    if (!r2.isEmpty()) {
+                        part2 = "[" + r2 + "]";
+                    } else {
+                        part2 = s2; 
+                    }
+                } else {
+                    part2 = formatItem(s2, r2);
+                }
+                first = toPart(normalizer, s1, r1, t1);
+                second = toPart(normalizer, s2, r2, t2);
+                
+                finalLesson = part1 + " / " + part2;
+                
+                if (t1.equals(t2) && !t1.isEmpty()) finalTeacher = t1;
+                else {
+                     String teach1 = t1.isEmpty() ? "—" : t1;
+                     String teach2 = t2.isEmpty() ? "—" : t2;
+                     finalTeacher = teach1 + " / " + teach2;
                 }
             }
-        } catch (Exception e) {
-            log.error("Parsing error", e);
-            throw new RuntimeException(e);
+
+            Lesson lesson = new Lesson();
+            lesson.setGroupName(groupName);
+            lesson.setDayOfWeek(row.day());
+            lesson.setLessonNumber(row.lessonNumber());
+            lesson.setRawText(normalizer.canonical(finalLesson));
+            lesson.setTeacher(normalizer.canonical(finalTeacher));
+            lesson.setFirst(first);
+            lesson.setSecond(second);
+            result[i] = lesson;
         }
+        return result;
+    }
 
-        String bellSchedule = bellMap.entrySet().stream()
-                .map(e -> e.getKey() + ". " + e.getValue())
-                .collect(Collectors.joining("\n"));
+    private record ScheduleRow(int rowIndex, DayOfWeek day, int lessonNumber) {}
 
-        return new ScheduleBundle(lessons, dateRangeString, weekStart, bellSchedule);
+    private record GroupBlock(String groupName, String hash, Lesson[] lessons) {}
+
+    private record SheetSchedule(List<Lesson> lessons, String dateRange, LocalDate weekStart, Map<Integer, String> bells,
+                                 Map<String, String> blockHashes, Set<String> unchangedGroups) {}
+
+    private record SheetOutcome(SheetSchedule schedule, RuntimeException error) {}
+
+    /**
+     * Код предмета отделяется здесь, один раз, чтобы при выводе расписания не гонять регулярку по каждой паре.
+     */
+    private LessonPart toPart(CellTextNormalizer normalizer, String subject, String room, String teacher) {
+        if (subject.isEmpty()) return new LessonPart("", "", "", "");
+        String code = "";
+        String name = subject;
+        Matcher m = ScheduleUtils.SUBJECT_CODE_PATTERN.matcher(subject);
+        if (m.matches()) {
+            String cleanName = m.group(4).trim();
+            if (cleanName.length() > 1) {
+                code = m.group(1).trim();
+                name = cleanName;
+            }
+        }
+        return new LessonPart(normalizer.canonical(code), normalizer.canonical(name), room, teacher);
     }
 
     private String formatItem(String subject, String room) {
@@ -154,63 +405,19 @@ public class ScheduleParserService {
         return subject + " [" + room + "]";
     }
     
-    private String clean(String text) {
-        if (text == null) return "";
-        text = text.replace('\u00A0', ' ').trim();
-        text = text.replaceAll("\\s+", " ");
-        
-        if (text.endsWith(".0")) text = text.substring(0, text.length() - 2);
-        if (text.equals("-") || text.equals("'") || text.equals("`") || text.equals(".")) return "";
-        return text;
-    }
-
-    private int findHeaderRow(Sheet sheet) {
+    private int findHeaderRow(CellGrid grid) {
         for (int r = 0; r < 20; r++) {
-            Row row = sheet.getRow(r);
-            if (row == null) continue;
-            for (Cell cell : row) {
-                if (GROUP_PATTERN.matcher(getCellText(cell)).matches()) return r;
+            if (!grid.hasRow(r)) continue;
+            for (int c = 0; c < grid.lastCellNum(r); c++) {
+                if (GROUP_PATTERN.matcher(grid.text(r, c)).matches()) return r;
             }
         }
         return -1;
     }
 
-    private String getMergedValue(Sheet sheet, int rowIdx, int colIdx) {
-        for (CellRangeAddress region : sheet.getMergedRegions()) {
-            if (region.isInRange(rowIdx, colIdx)) {
-                Row r = sheet.getRow(region.getFirstRow());
-                if (r == null) return "";
-                return getCellText(r.getCell(region.getFirstColumn()));
-            }
-        }
-        return getCellText(sheet.getRow(rowIdx).getCell(colIdx));
-    }
-    
-    private String getCellText(Sheet sheet, int r, int c) {
-        Row row = sheet.getRow(r);
-        return (row == null) ? "" : getCellText(row.getCell(c));
-    }
-
-    private String getCellText(Cell cell) {
-        if (cell == null) return "";
-        try {
-            return switch (cell.getCellType()) {
-                case STRING -> cell.getStringCellValue().trim();
-                case NUMERIC -> String.valueOf(cell.getNumericCellValue());
-                case BOOLEAN -> String.valueOf(cell.getBooleanCellValue());
-                case FORMULA -> cell.getStringCellValue().trim();
-                default -> "";
-            };
-        } catch (Exception e) { return ""; }
-    }
-
-    private boolean isMergedAcross(Sheet sheet, int row, int col) {
-        for (CellRangeAddress region : sheet.getMergedRegions()) {
-            if (region.isInRange(row, col)) {
-                return (region.getLastColumn() - region.getFirstColumn()) > 1;
-            }
-        }
-        return false;
+    private boolean isMergedAcross(CellGrid grid, int row, int col) {
+        CellRangeAddress region = grid.mergedRegion(row, col);
+        return region != null && (region.getLastColumn() - region.getFirstColumn()) > 1;
     }
 
     private DayOfWeek parseDay(String text) {
@@ -225,7 +432,16 @@ public class ScheduleParserService {
         return null;
     }
 
-    private int parseLessonNum(String text) {
-        return (text == null || text.isBlank()) ? 0 : (int) Double.parseDouble(clean(text));
+    /**
+     * @return номер пары или 0, если ячейка пуста или в ней не число (такая строка пропускается)
+     */
+    private int parseLessonNum(CellGrid grid, int row, String text, String cleanText) {
+        if (text == null || text.isBlank()) return 0;
+        try {
+            return (int) Double.parseDouble(cleanText);
+        } catch (NumberFormatException e) {
+            log.warn("Sheet '{}', row {}: lesson number '{}' is not a number, row skipped", grid.sheetName(), row + 1, text);
+            return 0;
+        }
     }
 }
\ No newline at end of file
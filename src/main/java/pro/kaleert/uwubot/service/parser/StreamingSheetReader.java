@@ -0,0 +1,118 @@
+package pro.kaleert.uwubot.service.parser;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellAddress;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.springframework.stereotype.Component;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Читает листы xlsx через event-модель POI (SAX), не поднимая XSSF DOM.
+ * Таблица shared strings и merge-ячейки читаются один раз, на выходе — {@link CellGrid}.
+ */
+@Slf4j
+@Component
+public class StreamingSheetReader {
+
+    /**
+     * Читает все листы книги. Лист, который не удалось прочитать, пропускается и не мешает остальным.
+     */
+    public List<CellGrid> readSheets(OPCPackage pkg) throws Exception {
+        XSSFReader reader = new XSSFReader(pkg);
+        ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg, false);
+        StylesTable styles = reader.getStylesTable();
+
+        List<CellGrid> grids = new ArrayList<>();
+        XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+        while (sheets.hasNext()) {
+            try (InputStream sheet = sheets.next()) {
+                String sheetName = sheets.getSheetName();
+                try {
+                    grids.add(readSheet(sheet, sheetName, styles, strings));
+                } catch (Exception e) {
+                    log.error("Failed to read sheet '{}'", sheetName, e);
+                }
+            }
+        }
+        return grids;
+    }
+
+    private CellGrid readSheet(InputStream sheet, String sheetName, StylesTable styles,
+                               ReadOnlySharedStringsTable strings) throws Exception {
+        CellGrid.Builder builder = new CellGrid.Builder(sheetName);
+        XMLReader parser = XMLHelper.newXMLReader();
+        parser.setContentHandler(new MergeAwareHandler(styles, strings, new GridContentsHandler(builder), builder));
+        parser.parse(new InputSource(sheet));
+        return builder.build();
+    }
+
+    /**
+     * Стандартный обработчик POI не сообщает о &lt;mergeCell&gt;, поэтому перехватываем их сами.
+     */
+    private static class MergeAwareHandler extends XSSFSheetXMLHandler {
+        private final CellGrid.Builder builder;
+
+        MergeAwareHandler(StylesTable styles, ReadOnlySharedStringsTable strings,
+                          SheetContentsHandler contents, CellGrid.Builder builder) {
+            super(styles, null, strings, contents, new DataFormatter(), false);
+            this.builder = builder;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+            if ("mergeCell".equals(localName)) {
+                String ref = attributes.getValue("ref");
+                if (ref != null) builder.addMergedRegion(CellRangeAddress.valueOf(ref));
+            }
+            super.startElement(uri, localName, qName, attributes);
+        }
+    }
+
+    private static class GridContentsHandler implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final CellGrid.Builder builder;
+        private String[] cells = new String[16];
+        private int width;
+        private int nextCol;
+
+        GridContentsHandler(CellGrid.Builder builder) {
+            this.builder = builder;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            Arrays.fill(cells, 0, width, null);
+            width = 0;
+            nextCol = 0;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            builder.setRow(rowNum, Arrays.copyOf(cells, width));
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int col = (cellReference != null) ? new CellAddress(cellReference).getColumn() : nextCol;
+            nextCol = col + 1;
+            if (col >= cells.length) cells = Arrays.copyOf(cells, Math.max(col + 1, cells.length * 2));
+            cells[col] = (formattedValue == null) ? "" : builder.intern(formattedValue.trim());
+            width = Math.max(width, col + 1);
+        }
+    }
+}
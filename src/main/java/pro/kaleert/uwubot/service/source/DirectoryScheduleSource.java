@@ -0,0 +1,176 @@
+package pro.kaleert.uwubot.service.source;
+
+import lombok.extern.slf4j.Slf4j;
+import pro.kaleert.uwubot.config.UwuBotConfig;
+import pro.kaleert.uwubot.entity.ParsingMeta;
+import pro.kaleert.uwubot.service.FileDownload;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Локальный каталог (зеркало сайта, файлы для офлайн-прогонов): импортируется самый свежий xlsx.
+ * Новые и изменённые файлы замечает {@link WatchService} и сразу запускает импорт, не дожидаясь опроса.
+ */
+@Slf4j
+public class DirectoryScheduleSource implements ScheduleSource {
+
+    /**
+     * Сколько ждать тишины после события: файл часто пишется (или копируется) несколькими операциями.
+     */
+    private static final long SETTLE_MS = 1_000L;
+
+    private final UwuBotConfig.Source settings;
+    private final Path directory;
+
+    private WatchService watchService;
+    private Thread watcher;
+
+    public DirectoryScheduleSource(UwuBotConfig.Source settings) {
+        this.settings = settings;
+        this.directory = Path.of(settings.getPath());
+    }
+
+    @Override
+    public String key() {
+        return settings.getKey();
+    }
+
+    @Override
+    public String namespace() {
+        return settings.getNamespace();
+    }
+
+    @Override
+    public SourceFetch fetch(ParsingMeta meta, boolean force, Consumer<String> statusCallback) throws Exception {
+        statusCallback.accept("🔍 Поиск файла в каталоге...");
+        Optional<Path> newest = findNewest();
+        if (newest.isEmpty()) {
+            statusCallback.accept("❌ В каталоге нет xlsx-файлов.");
+            return SourceFetch.failed();
+        }
+
+        Path path = newest.get();
+        String location = path.toAbsolutePath().toString();
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        // Вместо ETag — размер и время изменения: без изменений файл даже не читается
+        String stamp = attributes.size() + "-" + attributes.lastModifiedTime().toMillis();
+
+        meta.setLastCheckTime(LocalDateTime.now());
+        meta.setLastFileCheckTime(LocalDateTime.now());
+
+        boolean metaIsComplete = meta.getLastBellSchedule() != null && !meta.getLastBellSchedule().isEmpty();
+        if (!force && metaIsComplete && location.equals(meta.getLastFileUrl()) && stamp.equals(meta.getFileEtag())) {
+            log.debug("Файл {} не изменился.", location);
+            statusCallback.accept("✅ Файл не изменился.");
+            return SourceFetch.unchanged();
+        }
+
+        statusCallback.accept("📥 Чтение файла...");
+        // Импорт читает копию: файл в каталоге могут перезаписать, пока идёт парсинг
+        try (InputStream in = Files.newInputStream(path)) {
+            return SourceFetch.of(location, FileDownload.store(in, stamp, null));
+        }
+    }
+
+    private Optional<Path> findNewest() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(DirectoryScheduleSource::isScheduleFile)
+                    .filter(Files::isRegularFile)
+                    .max(Comparator.comparing(DirectoryScheduleSource::lastModified));
+        }
+    }
+
+    private static boolean isScheduleFile(Path path) {
+        String name = path.getFileName().toString();
+        // ~$ — файл блокировки открытой в Excel книги
+        return name.toLowerCase().endsWith(".xlsx") && !name.startsWith("~$") && !name.startsWith(".");
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    @Override
+    public synchronized void watch(Runnable onChange) {
+        if (watcher != null) return;
+        try {
+            watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            log.error("Cannot watch directory {} of source '{}', relying on polling", directory, key(), e);
+            return;
+        }
+        watcher = Thread.ofVirtual().name("schedule-watch-" + key()).start(() -> watchLoop(onChange));
+        log.info("Watching {} for source '{}'", directory, key());
+    }
+
+    private void watchLoop(Runnable onChange) {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey watchKey = watchService.take();
+                boolean relevant = drain(watchKey);
+                if (!relevant) continue;
+
+                // Ждём, пока запись файла закончится: события в пределах SETTLE_MS склеиваются
+                WatchKey next;
+                while ((next = watchService.poll(SETTLE_MS, TimeUnit.MILLISECONDS)) != null) {
+                    drain(next);
+                }
+                log.debug("New schedule file in {}", directory);
+                try {
+                    onChange.run();
+                } catch (Exception e) {
+                    log.error("Failed to start import for source '{}'", key(), e);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            log.debug("Watcher of '{}' stopped", key());
+        }
+    }
+
+    private boolean drain(WatchKey watchKey) {
+        boolean relevant = false;
+        for (WatchEvent<?> event : watchKey.pollEvents()) {
+            // OVERFLOW: события потеряны, каталог всё равно надо перепроверить
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || (event.context() instanceof Path name && isScheduleFile(name))) {
+                relevant = true;
+            }
+        }
+        watchKey.reset();
+        return relevant;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (watcher != null) watcher.interrupt();
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                log.debug("Failed to close watch service of '{}'", key(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package pro.kaleert.uwubot.service.source;
+
+import pro.kaleert.uwubot.entity.ParsingMeta;
+
+import java.util.function.Consumer;
+
+/**
+ * Откуда берётся файл расписания. Источник только находит и отдаёт файл ({@link SourceFetch});
+ * парсинг, сравнение и запись в БД у всех источников общие ({@code UpdateService}).
+ */
+public interface ScheduleSource {
+
+    /**
+     * Уникальный ключ: им помечены уроки источника и под ним хранится его {@link ParsingMeta}.
+     */
+    String key();
+
+    /**
+     * Префикс групп источника в верхнем регистре; пустая строка — без префикса.
+     */
+    String namespace();
+
+    /**
+     * Ищет актуальный файл. Может обновлять в {@code meta} собственные поля (валидаторы, время проверки):
+     * при успешной или «ничего нового» проверке они сохраняются, при ошибке — нет.
+     *
+     * @param force не использовать сохранённые валидаторы, отдать файл, даже если он не менялся
+     */
+    SourceFetch fetch(ParsingMeta meta, boolean force, Consumer<String> statusCallback) throws Exception;
+
+    /**
+     * Источники, которые сами узнают о новых файлах, вызывают {@code onChange} сразу, без ожидания опроса.
+     */
+    default void watch(Runnable onChange) {
+    }
+
+    default void close() {
+    }
+}
@@ -0,0 +1,143 @@
+package pro.kaleert.uwubot.service.source;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import pro.kaleert.uwubot.config.UwuBotConfig;
+import pro.kaleert.uwubot.service.HttpFetcher;
+import pro.kaleert.uwubot.service.ScheduleLinkScanner;
+
+import java.util.*;
+
+/**
+ * Источники расписания из конфига ({@code nyagram.sources}) с проверкой ключей и префиксов групп.
+ * Группа принадлежит источнику по префиксу пространства имён ("КФУ/П-101"); группы без префикса —
+ * источнику с пустым namespace (по умолчанию — единственному).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ScheduleSourceRegistry {
+
+    /**
+     * Ключ единственного источника из {@code schedule-url} — под ним хранились метаданные до появления списка источников.
+     */
+    public static final String DEFAULT_KEY = "schedule_file";
+    public static final char NAMESPACE_SEPARATOR = '/';
+
+    private final UwuBotConfig properties;
+    private final HttpFetcher httpFetcher;
+    private final ScheduleLinkScanner linkScanner;
+
+    private List<ScheduleSource> sources;
+    private ScheduleSource defaultSource;
+
+    @PostConstruct
+    public void init() {
+        List<UwuBotConfig.Source> configured = properties.getSources();
+        if (configured == null || configured.isEmpty()) {
+            UwuBotConfig.Source single = new UwuBotConfig.Source();
+            single.setKey(DEFAULT_KEY);
+            single.setUrl(properties.getScheduleUrl());
+            configured = List.of(single);
+        }
+
+        Set<String> keys = new HashSet<>();
+        Set<String> namespaces = new HashSet<>();
+        List<ScheduleSource> created = new ArrayList<>();
+        for (UwuBotConfig.Source settings : configured) {
+            if (settings.getKey() == null || settings.getKey().isBlank()) {
+                throw new IllegalStateException("Schedule source must have a key: " + settings);
+            }
+            if (settings.getNamespace() == null) settings.setNamespace("");
+            settings.setNamespace(settings.getNamespace().trim().toUpperCase());
+            if (!keys.add(settings.getKey())) {
+                throw new IllegalStateException("Duplicate schedule source key: " + settings.getKey());
+            }
+            if (!namespaces.add(settings.getNamespace())) {
+                throw new IllegalStateException("Duplicate schedule source namespace: '" + settings.getNamespace() + "'");
+            }
+            created.add(create(settings));
+        }
+
+        sources = List.copyOf(created);
+        defaultSource = sources.stream()
+                .filter(source -> source.namespace().isEmpty())
+                .findFirst()
+                .orElse(sources.get(0));
+        log.info("Schedule sources: {}", sources.stream().map(ScheduleSource::key).toList());
+    }
+
+    private ScheduleSource create(UwuBotConfig.Source settings) {
+        UwuBotConfig.SourceType type = settings.getType() != null ? settings.getType() : UwuBotConfig.SourceType.WEB;
+        return switch (type) {
+            case WEB -> {
+                if (settings.getUrl() == null || settings.getUrl().isBlank()) {
+                    throw new IllegalStateException("Web schedule source '" + settings.getKey() + "' must have a url");
+                }
+                yield new WebScheduleSource(settings, httpFetcher, linkScanner, properties);
+            }
+            case DIRECTORY -> {
+                if (settings.getPath() == null || settings.getPath().isBlank()) {
+                    throw new IllegalStateException("Directory schedule source '" + settings.getKey() + "' must have a path");
+                }
+                yield new DirectoryScheduleSource(settings);
+            }
+        };
+    }
+
+    @PreDestroy
+    public void close() {
+        sources.forEach(ScheduleSource::close);
+    }
+
+    public List<ScheduleSource> sources() {
+        return sources;
+    }
+
+    public Optional<ScheduleSource> find(String key) {
+        return sources.stream().filter(source -> source.key().equals(key)).findFirst();
+    }
+
+    /**
+     * Источник группы по её префиксу; для {@code null} и групп без префикса — источник по умолчанию.
+     */
+    public ScheduleSource sourceOfGroup(String groupName) {
+        if (groupName != null) {
+            int separator = groupName.indexOf(NAMESPACE_SEPARATOR);
+            if (separator > 0) {
+                String namespace = groupName.substring(0, separator);
+                for (ScheduleSource source : sources) {
+                    if (source.namespace().equals(namespace)) return source;
+                }
+            }
+        }
+        return defaultSource;
+    }
+
+    /**
+     * Источник по умолчанию: ему принадлежат группы без префикса и данные, сохранённые до появления источников.
+     */
+    public boolean isDefault(ScheduleSource source) {
+        return source == defaultSource;
+    }
+
+    /**
+     * Имя группы в общем пространстве: группа из файла с префиксом источника.
+     */
+    public static String qualify(ScheduleSource source, String group) {
+        return source.namespace().isEmpty() ? group : source.namespace() + NAMESPACE_SEPARATOR + group;
+    }
+
+    /**
+     * Обратное к {@link #qualify}: имя группы, как оно записано в файле источника.
+     */
+    public static String unqualify(ScheduleSource source, String groupName) {
+        String prefix = source.namespace() + NAMESPACE_SEPARATOR;
+        return !source.namespace().isEmpty() && groupName.startsWith(prefix)
+                ? groupName.substring(prefix.length())
+                : groupName;
+    }
+}
@@ -0,0 +1,35 @@
+package pro.kaleert.uwubot.service.source;
+
+import pro.kaleert.uwubot.service.FileDownload;
+import pro.kaleert.uwubot.service.UpdateOutcome;
+
+/**
+ * Результат проверки источника: либо файл для импорта, либо итог без файла.
+ *
+ * @param location адрес файла (URL или путь), сохраняется в {@code ParsingMeta.lastFileUrl}
+ * @param file     временная копия файла; {@code null}, если импортировать нечего
+ * @param outcome  итог, если файла нет ({@link UpdateOutcome#UNCHANGED} или {@link UpdateOutcome#FAILED})
+ */
+public record SourceFetch(String location, FileDownload file, UpdateOutcome outcome) implements AutoCloseable {
+
+    public static SourceFetch of(String location, FileDownload file) {
+        return new SourceFetch(location, file, null);
+    }
+
+    public static SourceFetch unchanged() {
+        return new SourceFetch(null, null, UpdateOutcome.UNCHANGED);
+    }
+
+    public static SourceFetch failed() {
+        return new SourceFetch(null, null, UpdateOutcome.FAILED);
+    }
+
+    public boolean hasFile() {
+        return file != null;
+    }
+
+    @Override
+    public void close() {
+        if (file != null) file.close();
+    }
+}
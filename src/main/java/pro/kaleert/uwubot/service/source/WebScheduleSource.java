@@ -0,0 +1,128 @@
+package pro.kaleert.uwubot.service.source;
+
+import lombok.extern.slf4j.Slf4j;
+import pro.kaleert.uwubot.config.UwuBotConfig;
+import pro.kaleert.uwubot.entity.ParsingMeta;
+import pro.kaleert.uwubot.service.FetchResult;
+import pro.kaleert.uwubot.service.FileDownload;
+import pro.kaleert.uwubot.service.HttpFetcher;
+import pro.kaleert.uwubot.service.ScheduleLinkScanner;
+
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+/**
+ * Страница сайта со ссылками на xlsx: ссылка выбирается {@link ScheduleLinkScanner},
+ * страница и файл запрашиваются условно по сохранённым валидаторам.
+ */
+@Slf4j
+public class WebScheduleSource implements ScheduleSource {
+
+    private static final int MAX_RETRIES = 3;
+
+    private final UwuBotConfig.Source settings;
+    private final HttpFetcher httpFetcher;
+    private final ScheduleLinkScanner linkScanner;
+    private final UwuBotConfig properties;
+
+    public WebScheduleSource(UwuBotConfig.Source settings, HttpFetcher httpFetcher,
+                             ScheduleLinkScanner linkScanner, UwuBotConfig properties) {
+        this.settings = settings;
+        this.httpFetcher = httpFetcher;
+        this.linkScanner = linkScanner;
+        this.properties = properties;
+    }
+
+    @Override
+    public String key() {
+        return settings.getKey();
+    }
+
+    @Override
+    public String namespace() {
+        return settings.getNamespace();
+    }
+
+    @Override
+    public SourceFetch fetch(ParsingMeta meta, boolean force, Consumer<String> statusCallback) throws Exception {
+        statusCallback.accept("🔍 Поиск ссылки на сайте...");
+        String fileUrl = null;
+        boolean canReuseLink = !force && meta.getLastFileUrl() != null && !meta.getLastFileUrl().isEmpty();
+        boolean linksUnchanged = false;
+
+        for (int i = 0; i < MAX_RETRIES; i++) {
+            try {
+                FetchResult page = httpFetcher.fetch(settings.getUrl(),
+                        canReuseLink ? meta.getPageEtag() : null,
+                        canReuseLink ? meta.getPageLastModified() : null);
+
+                if (page.notModified()) {
+                    // Страница та же, значит и ссылка на файл прежняя
+                    fileUrl = meta.getLastFileUrl();
+                    linksUnchanged = true;
+                    log.debug("Страница не изменилась, ссылка: {}", fileUrl);
+                    break;
+                }
+
+                ScheduleLinkScanner.LinkScan scan = linkScanner.scan(
+                        new ByteArrayInputStream(page.body()), page.charset(), settings.getUrl());
+
+                if (scan.url() != null) {
+                    fileUrl = scan.url();
+                    linksUnchanged = canReuseLink && scan.linksHash().equals(meta.getLastLinksHash());
+                    // Сохранятся вместе с метаданными файла, только если обработка файла дойдёт до конца
+                    meta.setPageEtag(page.etag());
+                    meta.setPageLastModified(page.lastModified());
+                    meta.setLastLinksHash(scan.linksHash());
+                    log.debug("Выбрана ссылка: {} (Текст: {})", fileUrl, scan.text());
+                    break;
+                }
+                Thread.sleep(2000);
+            } catch (Exception e) {
+                if (i == MAX_RETRIES - 1) statusCallback.accept("❌ Ошибка сайта: " + e.getMessage());
+            }
+        }
+
+        if (fileUrl == null) {
+            statusCallback.accept("❌ Подходящая ссылка не найдена.");
+            return SourceFetch.failed();
+        }
+
+        if (linksUnchanged && fileUrl.equals(meta.getLastFileUrl()) && !isFileRecheckDue(meta)) {
+            log.debug("Ссылки на странице не изменились, файл не проверяем.");
+            statusCallback.accept("✅ Ссылки на сайте не изменились.");
+            meta.setLastCheckTime(LocalDateTime.now());
+            return SourceFetch.unchanged();
+        }
+
+        statusCallback.accept("📥 Скачивание...");
+        meta.setLastCheckTime(LocalDateTime.now());
+        meta.setLastFileCheckTime(LocalDateTime.now());
+
+        boolean metaIsComplete = meta.getLastBellSchedule() != null && !meta.getLastBellSchedule().isEmpty();
+        // Валидаторы годятся, только если это тот же адрес и прошлый файл был разобран полностью
+        boolean conditional = !force && metaIsComplete && fileUrl.equals(meta.getLastFileUrl());
+
+        FileDownload file = httpFetcher.download(HttpFetcher.encodeUrl(fileUrl),
+                conditional ? meta.getFileEtag() : null,
+                conditional ? meta.getFileLastModified() : null);
+        if (file.notModified()) {
+            log.debug("Файл не изменился (304).");
+            statusCallback.accept("✅ Файл не изменился.");
+            return SourceFetch.unchanged();
+        }
+        return SourceFetch.of(fileUrl, file);
+    }
+
+    /**
+     * Файл под той же ссылкой иногда заменяют правками, поэтому даже без новых ссылок
+     * он перепроверяется (условным запросом) не реже {@code scheduler.file-recheck-interval}.
+     */
+    private boolean isFileRecheckDue(ParsingMeta meta) {
+        if (meta.getLastFileCheckTime() == null) return true;
+        long recheckMs = properties.getScheduler().getFileRecheckInterval();
+        return meta.getLastFileCheckTime().plus(Duration.ofMillis(recheckMs)).isBefore(LocalDateTime.now());
+    }
+}
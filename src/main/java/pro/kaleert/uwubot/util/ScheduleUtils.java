@@ -4,11 +4,15 @@ import pro.kaleert.uwubot.entity.Lesson;
 
 import java.util.Comparator;
 import java.util.List;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 public class ScheduleUtils {
 
+    // Код дисциплины перед названием ("МДК.01.02 Программирование"): группа 1 — код, группа 4 — название
+    public static final Pattern SUBJECT_CODE_PATTERN = Pattern.compile("^([А-ЯA-Z]{2,5}(\\.[А-ЯA-Z]{2,5})?(\\.\\d{1,2}){0,3}\\.?)\\s+(.*)");
+
     public static List<Lesson> fillGaps(List<Lesson> rawLessons) {
         if (rawLessons.isEmpty()) return rawLessons;
 
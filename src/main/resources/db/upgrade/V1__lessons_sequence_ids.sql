@@ -0,0 +1,6 @@
+-- Id уроков выдаёт последовательность lesson_seq (пакетные вставки), auto_increment старой схемы больше не нужен
+ALTER TABLE lessons MODIFY id BIGINT NOT NULL;
+
+-- Последовательность продолжает старые id. Пул Hibernate (allocationSize = 50 у Lesson) выдаёт id
+-- ниже прочитанного значения, поэтому запас — на размер пула
+UPDATE lesson_seq SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + 51 FROM lessons));
@@ -0,0 +1,15 @@
+-- Уроки, сохранённые до источников и версий (source_key пуст, valid_from = 0), становятся версией 1
+-- источника по умолчанию: иначе читатели (LessonRepository.CURRENT) не видят ни одной строки до первого импорта
+UPDATE lessons SET source_key = ${default_source_key}, valid_from = 1
+WHERE source_key IS NULL AND valid_to IS NULL;
+
+UPDATE group_fingerprints SET source_key = ${default_source_key} WHERE source_key IS NULL;
+
+-- Указатель версии: метаданные источника могли ещё не существовать (ключ источника задан в конфиге)
+INSERT IGNORE INTO parsing_meta (key_name, current_version)
+SELECT ${default_source_key}, 1 FROM DUAL
+WHERE EXISTS (SELECT 1 FROM lessons WHERE source_key = ${default_source_key} AND valid_from = 1);
+
+UPDATE parsing_meta SET current_version = 1
+WHERE key_name = ${default_source_key} AND current_version IS NULL
+  AND EXISTS (SELECT 1 FROM lessons WHERE source_key = ${default_source_key} AND valid_from = 1);
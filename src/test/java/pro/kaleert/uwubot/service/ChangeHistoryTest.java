@@ -0,0 +1,35 @@
+package pro.kaleert.uwubot.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeHistoryTest {
+
+    @Test
+    void appendsWithoutNanosAndSkipsBrokenEntries() {
+        String history = ChangeHistory.append("2026-02-02T10:15, мусор", LocalDateTime.of(2026, 2, 3, 9, 0, 5, 123));
+
+        assertEquals("2026-02-02T10:15,2026-02-03T09:00:05", history);
+        assertEquals(List.of(LocalDateTime.of(2026, 2, 2, 10, 15), LocalDateTime.of(2026, 2, 3, 9, 0, 5)),
+                ChangeHistory.parse(history));
+        assertTrue(ChangeHistory.parse(null).isEmpty());
+    }
+
+    @Test
+    void keepsLatestEntries() {
+        String history = null;
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 12, 0);
+        for (int i = 0; i < ChangeHistory.MAX_ENTRIES + 5; i++) {
+            history = ChangeHistory.append(history, start.plusDays(i));
+        }
+
+        List<LocalDateTime> entries = ChangeHistory.parse(history);
+        assertEquals(ChangeHistory.MAX_ENTRIES, entries.size());
+        assertEquals(start.plusDays(5), entries.get(0));
+        assertEquals(start.plusDays(ChangeHistory.MAX_ENTRIES + 4), entries.get(entries.size() - 1));
+    }
+}
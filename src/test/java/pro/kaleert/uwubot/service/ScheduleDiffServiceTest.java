@@ -0,0 +1,74 @@
+package pro.kaleert.uwubot.service;
+
+import org.junit.jupiter.api.Test;
+import pro.kaleert.uwubot.entity.Lesson;
+import pro.kaleert.uwubot.entity.LessonPart;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScheduleDiffServiceTest {
+
+    private static final LocalDate WEEK = LocalDate.of(2026, 2, 2);
+
+    private final ScheduleDiffService diffService = new ScheduleDiffService(null);
+
+    @Test
+    void reportsOnlyChangedDays() {
+        List<Lesson> old = List.of(lesson(DayOfWeek.MONDAY, 1, "Математика [201]"), lesson(DayOfWeek.TUESDAY, 1, "Физика [301]"));
+        List<Lesson> updated = List.of(lesson(DayOfWeek.MONDAY, 1, "Математика [201]"), lesson(DayOfWeek.TUESDAY, 1, "Химия [302]"));
+
+        assertTrue(diffService.hasChanges(old, updated));
+        String report = diffService.generateDiffReport(Map.of(), false, "ИС-101", old, updated, WEEK);
+
+        assertTrue(report.startsWith("<b>🔔 Изменения в расписании ИС-101</b>"), report);
+        assertTrue(report.contains("03.02.2026  ВТОРНИК"), report);
+        assertFalse(report.contains("ПОНЕДЕЛЬНИК"), report);
+        // Изменившаяся пара выделена
+        assertTrue(report.contains("1 | <i>Химия [302]</i>"), report);
+    }
+
+    @Test
+    void marksRemovedLessonAndUsesAliases() {
+        Lesson math = lesson(DayOfWeek.MONDAY, 1, "Математика [201]");
+        math.setFirst(new LessonPart("", "Математика", "201", "Иванов И.И."));
+        List<Lesson> old = List.of(math, lesson(DayOfWeek.MONDAY, 2, "Физика [301]"));
+        List<Lesson> updated = List.of(math);
+
+        String report = diffService.generateDiffReport(Map.of("математика", "Матан"), false, "ИС-101", old, updated, WEEK);
+
+        assertTrue(report.contains("1 | Матан [201]"), report);
+        assertTrue(report.contains("2 | ~~"), report);
+    }
+
+    @Test
+    void noReportWithoutChanges() {
+        List<Lesson> lessons = List.of(lesson(DayOfWeek.MONDAY, 1, "Математика [201]"));
+
+        assertFalse(diffService.hasChanges(lessons, List.of(lesson(DayOfWeek.MONDAY, 1, "Математика [201]"))));
+        assertNull(diffService.generateDiffReport(Map.of(), false, "ИС-101", lessons, lessons, WEEK));
+    }
+
+    @Test
+    void newGroupGetsShortNotice() {
+        List<Lesson> updated = List.of(lesson(DayOfWeek.MONDAY, 1, "Математика [201]"));
+
+        assertTrue(diffService.hasChanges(List.of(), updated));
+        assertEquals("📅 <b>Новое расписание для ИС-101</b>\n\nПроверь /rasp",
+                diffService.generateDiffReport(Map.of(), false, "ИС-101", List.of(), updated, WEEK));
+    }
+
+    private static Lesson lesson(DayOfWeek day, int number, String text) {
+        Lesson lesson = new Lesson();
+        lesson.setGroupName("ИС-101");
+        lesson.setDayOfWeek(day);
+        lesson.setLessonNumber(number);
+        lesson.setRawText(text);
+        lesson.setTeacher("Иванов И.И.");
+        return lesson;
+    }
+}
@@ -0,0 +1,67 @@
+package pro.kaleert.uwubot.service;
+
+import org.junit.jupiter.api.Test;
+import pro.kaleert.uwubot.config.UwuBotConfig;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpdateSchedulerTest {
+
+    // Понедельник; окно публикации — час вокруг времени прошлых изменений
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 2, 2, 12, 0);
+
+    private final UwuBotConfig properties = new UwuBotConfig();
+    private final UpdateScheduler scheduler = new UpdateScheduler(null, null, null, properties, null);
+
+    @Test
+    void checksOftenAfterChangeOrFailure() {
+        UpdateScheduler.SourceState state = new UpdateScheduler.SourceState();
+
+        assertEquals(Duration.ofMinutes(10), scheduler.plan(state, UpdateOutcome.CHANGED, List.of(), NOW).interval());
+        assertEquals(Duration.ofMinutes(10), scheduler.plan(state, UpdateOutcome.FAILED, List.of(), NOW).interval());
+    }
+
+    @Test
+    void backsOffWhileUnchangedUpToMax() {
+        UpdateScheduler.SourceState state = new UpdateScheduler.SourceState();
+
+        assertEquals(Duration.ofMinutes(20), scheduler.plan(state, UpdateOutcome.UNCHANGED, List.of(), NOW).interval());
+        assertEquals(Duration.ofMinutes(40), scheduler.plan(state, UpdateOutcome.UNCHANGED, List.of(), NOW).interval());
+        assertEquals(Duration.ofMinutes(80), scheduler.plan(state, UpdateOutcome.UNCHANGED, List.of(), NOW).interval());
+        assertEquals(Duration.ofHours(2), scheduler.plan(state, UpdateOutcome.UNCHANGED, List.of(), NOW).interval());
+        assertEquals(Duration.ofHours(2), scheduler.plan(state, UpdateOutcome.UNCHANGED, List.of(), NOW).interval());
+
+        // Изменение сбрасывает серию
+        scheduler.plan(state, UpdateOutcome.CHANGED, List.of(), NOW);
+        assertEquals(Duration.ofMinutes(20), scheduler.plan(state, UpdateOutcome.UNCHANGED, List.of(), NOW).interval());
+    }
+
+    @Test
+    void checksOftenInsidePublicationWindow() {
+        UpdateScheduler.SourceState state = new UpdateScheduler.SourceState();
+        // Неделю назад файл поменялся в 12:30 — сейчас окно публикации
+        List<LocalDateTime> history = List.of(NOW.minusWeeks(1).plusMinutes(30));
+
+        UpdateScheduler.Plan plan = scheduler.plan(state, UpdateOutcome.UNCHANGED, history, NOW);
+
+        assertEquals(Duration.ofMinutes(10), plan.interval());
+        assertEquals("окно публикации", plan.reason());
+    }
+
+    @Test
+    void wakesUpForUpcomingWindow() {
+        UpdateScheduler.SourceState state = new UpdateScheduler.SourceState();
+        for (int i = 0; i < 5; i++) scheduler.plan(state, UpdateOutcome.UNCHANGED, List.of(), NOW);
+        // Прошлое изменение в 14:30: окно начинается в 13:30, раньше двухчасового интервала
+        List<LocalDateTime> history = List.of(NOW.minusWeeks(1).plusMinutes(150));
+
+        UpdateScheduler.Plan plan = scheduler.plan(state, UpdateOutcome.UNCHANGED, history, NOW);
+
+        assertEquals(Duration.ofMinutes(90), plan.interval());
+        assertEquals(NOW.plusMinutes(90), plan.nextCheck());
+    }
+}
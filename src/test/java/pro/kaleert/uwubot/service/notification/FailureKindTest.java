@@ -0,0 +1,62 @@
+package pro.kaleert.uwubot.service.notification;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FailureKindTest {
+
+    @Test
+    void classifiesByTelegramErrorCode() {
+        assertEquals(FailureKind.BLOCKED, classify(403, "Forbidden: bot was blocked by the user"));
+        assertEquals(FailureKind.BLOCKED, classify(403, "Forbidden: user is deactivated"));
+        assertEquals(FailureKind.CHAT_NOT_FOUND, classify(400, "Bad Request: chat not found"));
+        assertEquals(FailureKind.RATE_LIMITED, classify(429, "Too Many Requests: retry after 5"));
+        assertEquals(FailureKind.NETWORK, classify(502, "Bad Gateway"));
+        // Прочие 400 — ошибка сообщения, а не получателя
+        assertEquals(FailureKind.OTHER, classify(400, "Bad Request: can't parse entities"));
+    }
+
+    @Test
+    void doesNotGuessFromMessageText() {
+        // Текст похож на блокировку, но ответа Telegram в исключении нет — студента отключать нельзя
+        assertEquals(FailureKind.OTHER, FailureKind.classify(new RuntimeException("user blocked: chat not found")));
+        assertFalse(FailureKind.classify(new RuntimeException("forbidden")).isPermanent());
+    }
+
+    @Test
+    void readsHttpResponseAndCauseChain() {
+        HttpClientErrorException response = HttpClientErrorException.create(HttpStatus.FORBIDDEN, "Forbidden", null,
+                "{\"ok\":false,\"error_code\":403,\"description\":\"Forbidden: bot was kicked from the group chat\"}"
+                        .getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+        assertEquals(FailureKind.BLOCKED, FailureKind.classify(new IllegalStateException("send failed", response)));
+
+        HttpClientErrorException withoutBody = HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS,
+                "Too Many Requests", null, new byte[0], StandardCharsets.UTF_8);
+        assertEquals(FailureKind.RATE_LIMITED, FailureKind.classify(withoutBody));
+
+        assertEquals(FailureKind.NETWORK, FailureKind.classify(new RuntimeException(new SocketTimeoutException("timeout"))));
+    }
+
+    @Test
+    void parsesRetryAfter() {
+        TelegramError error = TelegramError.parse("Telegram API error: {\"ok\":false,\"error_code\":429,"
+                + "\"description\":\"Too Many Requests: retry after 17\",\"parameters\":{\"retry_after\":17}}");
+
+        assertEquals(new TelegramError(429, "Too Many Requests: retry after 17", 17L), error);
+        assertEquals(17, NotificationDispatcher.retryAfterSeconds(new RuntimeException(new RuntimeException(
+                "{\"ok\":false,\"error_code\":429,\"parameters\":{\"retry_after\":17}}"))));
+        assertNull(TelegramError.parse("{\"ok\":true}"));
+        assertNull(TelegramError.parse("not json {"));
+    }
+
+    private static FailureKind classify(int code, String description) {
+        return FailureKind.classify(new RuntimeException(
+                "{\"ok\":false,\"error_code\":" + code + ",\"description\":\"" + description + "\"}"));
+    }
+}
@@ -0,0 +1,41 @@
+package pro.kaleert.uwubot.service.notification;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageComposerTest {
+
+    @Test
+    void joinsNoticesIntoOneMessage() {
+        assertEquals(List.of("🔔 звонки\n\nизменения"), MessageComposer.compose(List.of(" 🔔 звонки\n", "", "изменения")));
+    }
+
+    @Test
+    void startsNewMessageInsteadOfBreakingNoticeThatFits() {
+        String first = "a".repeat(3000);
+        String second = "b".repeat(2000);
+
+        assertEquals(List.of(first, second), MessageComposer.compose(List.of(first, second)));
+    }
+
+    @Test
+    void splitsLongNoticeByLines() {
+        String line = "x".repeat(1000);
+        String notice = String.join("\n", line, line, line, line, line, line);
+
+        List<String> messages = MessageComposer.compose(List.of(notice));
+
+        assertEquals(List.of(String.join("\n", line, line, line, line), String.join("\n", line, line)), messages);
+        messages.forEach(message -> assertTrue(message.length() <= MessageComposer.MAX_LENGTH));
+    }
+
+    @Test
+    void cutsLineLongerThanLimit() {
+        String line = "y".repeat(MessageComposer.MAX_LENGTH + 10);
+
+        assertEquals(List.of("y".repeat(MessageComposer.MAX_LENGTH), "y".repeat(10)), MessageComposer.compose(List.of(line)));
+    }
+}
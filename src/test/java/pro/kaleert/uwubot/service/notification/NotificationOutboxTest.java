@@ -0,0 +1,116 @@
+package pro.kaleert.uwubot.service.notification;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import pro.kaleert.uwubot.config.UwuBotConfig;
+import pro.kaleert.uwubot.entity.OutboxMessage;
+import pro.kaleert.uwubot.entity.SubjectAlias;
+import pro.kaleert.uwubot.repository.OutboxMessageRepository;
+import pro.kaleert.uwubot.repository.StudentRepository;
+import pro.kaleert.uwubot.repository.SubjectAliasRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class NotificationOutboxTest {
+
+    private final OutboxMessageRepository outboxRepository = mock(OutboxMessageRepository.class);
+    private final StudentRepository studentRepository = mock(StudentRepository.class);
+    private final SubjectAliasRepository aliasRepository = mock(SubjectAliasRepository.class);
+    private final UwuBotConfig properties = new UwuBotConfig();
+    private final NotificationOutbox outbox = new NotificationOutbox(outboxRepository, studentRepository, aliasRepository,
+            mock(NotificationDispatcher.class), properties, mock(EntityManager.class));
+
+    // Строки по пачкам, как они уходили в saveAll (список пачки очищается после записи)
+    private final List<List<OutboxMessage>> writes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        properties.getNotifications().setPageSize(2);
+        when(outboxRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<OutboxMessage> rows = invocation.getArgument(0);
+            writes.add(List.copyOf(rows));
+            return rows;
+        });
+    }
+
+    @Test
+    void pagesSubscribersByUserIdAndWritesInBatches() {
+        when(studentRepository.findSubscribers(eq("ИС-101"), eq(Long.MIN_VALUE), any(Pageable.class)))
+                .thenReturn(page(true, subscriber(1, 10, "ИС-101"), subscriber(2, 20, "ИС-101")));
+        when(studentRepository.findSubscribers(eq("ИС-101"), eq(2L), any(Pageable.class)))
+                .thenReturn(page(false, subscriber(3, 30, "ИС-101")));
+        AtomicInteger renders = new AtomicInteger();
+        Broadcast.Notice notice = (aliases, showCodes) -> {
+            renders.incrementAndGet();
+            return "изменения";
+        };
+
+        int queued = outbox.enqueue("schedule_file", new Broadcast(
+                List.of(new OutgoingMessage(99L, "админу")), Map.of("ИС-101", List.of(notice))));
+
+        assertEquals(4, queued);
+        // Пачка пишется, как только набирает page-size строк; остаток — в конце
+        assertEquals(List.of(3, 1), writes.stream().map(List::size).toList());
+        List<OutboxMessage> rows = writes.stream().flatMap(List::stream).toList();
+        assertEquals(List.of(99L, 10L, 20L, 30L), rows.stream().map(OutboxMessage::getChatId).toList());
+        assertNull(rows.get(0).getUserId());
+        assertEquals(List.of(1L, 2L, 3L), rows.subList(1, 4).stream().map(OutboxMessage::getUserId).toList());
+        // Одинаковые настройки получателей — текст строится один раз
+        assertEquals(1, renders.get());
+        verify(studentRepository, never()).findAllSubscribers(anyLong(), any());
+    }
+
+    @Test
+    void rendersPerAliasSet() {
+        when(studentRepository.findSubscribers(eq("ИС-101"), eq(Long.MIN_VALUE), any(Pageable.class)))
+                .thenReturn(page(false, subscriber(1, 10, "ИС-101"), subscriber(2, 20, "ИС-101")));
+        SubjectAlias alias = new SubjectAlias();
+        alias.setUserId(2L);
+        alias.setOriginalName("Математика");
+        alias.setAliasName("Матан");
+        when(aliasRepository.findAllByUserIdIn(List.of(1L, 2L))).thenReturn(List.of(alias));
+        Broadcast.Notice notice = (aliases, showCodes) -> aliases.getOrDefault("математика", "Математика");
+
+        outbox.enqueue("schedule_file", new Broadcast(List.of(), Map.of("ИС-101", List.of(notice))));
+
+        assertEquals(List.of("Математика", "Матан"), writes.get(0).stream().map(OutboxMessage::getText).toList());
+    }
+
+    @Test
+    void sendsGeneralNoticesToAudienceOfAllSubscribers() {
+        when(studentRepository.findAllSubscribers(eq(Long.MIN_VALUE), any(Pageable.class)))
+                .thenReturn(page(false, subscriber(1, 10, null), subscriber(2, 20, "ИС-101"), subscriber(3, 30, "Д-1")));
+
+        outbox.enqueue("schedule_file", new Broadcast(List.of(), List.of(Broadcast.Notice.of("звонки")),
+                group -> !"Д-1".equals(group), Map.of("ИС-101", List.of(Broadcast.Notice.of("изменения")))));
+
+        List<OutboxMessage> rows = writes.stream().flatMap(List::stream).toList();
+        assertEquals(List.of(10L, 20L), rows.stream().map(OutboxMessage::getChatId).toList());
+        assertEquals(List.of("звонки", "звонки\n\nизменения"), rows.stream().map(OutboxMessage::getText).toList());
+        verify(studentRepository, never()).findSubscribers(any(), anyLong(), any());
+    }
+
+    private static SliceImpl<StudentRepository.Subscriber> page(boolean hasNext, StudentRepository.Subscriber... subscribers) {
+        return new SliceImpl<>(List.of(subscribers), PageRequest.ofSize(2), hasNext);
+    }
+
+    private static StudentRepository.Subscriber subscriber(long userId, long chatId, String group) {
+        return new StudentRepository.Subscriber() {
+            public Long getUserId() { return userId; }
+            public Long getChatId() { return chatId; }
+            public String getSelectedGroup() { return group; }
+            public Boolean getShowCodes() { return false; }
+        };
+    }
+}
@@ -0,0 +1,31 @@
+package pro.kaleert.uwubot.service.notification;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    @Test
+    void firstTokenIsFreeAndNextOnesAreSpacedByRate() {
+        TokenBucket bucket = new TokenBucket(10);
+
+        assertEquals(0, bucket.reserve());
+        // Запаса нет: каждый следующий токен — на 1/10 с позже предыдущего
+        long second = bucket.reserve();
+        long third = bucket.reserve();
+        assertTrue(second > TimeUnit.MILLISECONDS.toNanos(50) && second <= TimeUnit.MILLISECONDS.toNanos(100), "second: " + second);
+        assertTrue(third - second > TimeUnit.MILLISECONDS.toNanos(50) && third <= TimeUnit.MILLISECONDS.toNanos(200), "third: " + third);
+    }
+
+    @Test
+    void doesNotAccumulateMoreThanOneToken() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(100);
+        Thread.sleep(50);
+
+        assertEquals(0, bucket.reserve());
+        assertTrue(bucket.reserve() > 0);
+    }
+}
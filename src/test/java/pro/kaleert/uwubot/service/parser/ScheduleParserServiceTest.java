@@ -0,0 +1,143 @@
+package pro.kaleert.uwubot.service.parser;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import pro.kaleert.uwubot.config.UwuBotConfig;
+import pro.kaleert.uwubot.entity.Lesson;
+import pro.kaleert.uwubot.entity.LessonPart;
+
+import java.io.IOException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScheduleParserServiceTest {
+
+    private final ScheduleParserService parser = new ScheduleParserService(new UwuBotConfig(), null);
+
+    @Test
+    void parsesGroupColumnsOfTheGrid() throws IOException {
+        ScheduleBundle bundle = parser.parse(List.of(grid("ИС-101 old")), Map.of());
+
+        assertEquals(LocalDate.of(2026, 2, 2), bundle.weekStart());
+        assertEquals("1. 08:30-10:00\n2. 10:10-11:40", bundle.bellSchedule());
+        assertEquals(List.of("ИС-101", "ИС-102"), List.copyOf(bundle.blockHashes().keySet()));
+
+        Lesson merged = lesson(bundle, "ИС-101", DayOfWeek.MONDAY, 1);
+        assertEquals("Математика [201]", merged.getRawText());
+        assertEquals("Иванов И.И.", merged.getTeacher());
+        assertNull(merged.getSecond());
+
+        Lesson split = lesson(bundle, "ИС-102", DayOfWeek.MONDAY, 1);
+        assertEquals("Физика [301] / Химия [302]", split.getRawText());
+        assertEquals("Петров П.П. / Сидоров С.С.", split.getTeacher());
+        assertEquals("Химия", split.getSecond().getName());
+
+        // Окно в файле — урока нет
+        assertTrue(bundle.lessons().stream().noneMatch(l -> l.getGroupName().equals("ИС-102")
+                && l.getDayOfWeek() == DayOfWeek.MONDAY && l.getLessonNumber() == 2));
+    }
+
+    @Test
+    void skipsGroupsWithKnownBlocks() throws IOException {
+        ScheduleBundle first = parser.parse(List.of(grid("ИС-101 old")), Map.of());
+        ScheduleBundle second = parser.parse(List.of(grid("ИС-101 new")),
+                Map.of("ИС-102", first.blockHashes().get("ИС-102"), "ИС-101", first.blockHashes().get("ИС-101")));
+
+        assertEquals(Set.of("ИС-102"), second.unchangedGroups());
+        assertTrue(second.lessons().stream().allMatch(l -> l.getGroupName().equals("ИС-101")));
+        assertEquals(Set.of("ИС-101"), second.contentHashes().keySet());
+    }
+
+    @Test
+    void contentHashIgnoresOrderAndDerivedParts() {
+        Lesson a = lesson(DayOfWeek.MONDAY, 1, "Математика [201]");
+        Lesson b = lesson(DayOfWeek.TUESDAY, 2, "Физика [301]");
+        String hash = ScheduleParserService.contentHash(List.of(a, b));
+
+        assertEquals(hash, ScheduleParserService.contentHash(List.of(b, a)));
+
+        // Строки, сохранённые до появления частей, равны свежему разбору — и отпечаток тот же
+        Lesson legacy = lesson(DayOfWeek.MONDAY, 1, "Математика [201]");
+        legacy.setFirst(null);
+        assertEquals(a, legacy);
+        assertEquals(hash, ScheduleParserService.contentHash(List.of(legacy, b)));
+
+        assertNotEquals(hash, ScheduleParserService.contentHash(List.of(lesson(DayOfWeek.MONDAY, 1, "Математика [202]"), b)));
+    }
+
+    private static Lesson lesson(DayOfWeek day, int number, String text) {
+        Lesson lesson = new Lesson();
+        lesson.setGroupName("ИС-101");
+        lesson.setDayOfWeek(day);
+        lesson.setLessonNumber(number);
+        lesson.setRawText(text);
+        lesson.setTeacher("Иванов И.И.");
+        lesson.setFirst(new LessonPart("", text, "", "Иванов И.И."));
+        return lesson;
+    }
+
+    private static Lesson lesson(ScheduleBundle bundle, String group, DayOfWeek day, int number) {
+        return bundle.lessons().stream()
+                .filter(l -> l.getGroupName().equals(group) && l.getDayOfWeek() == day && l.getLessonNumber() == number)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    /**
+     * Лист в разметке колледжа: заголовок с датами, строка групп (по четыре колонки на группу),
+     * строки пар и под каждой — строка преподавателей. {@code tuesday} — текст вторника у ИС-101.
+     */
+    private static CellGrid grid(String tuesday) throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet("Курс 1");
+            sheet.createRow(0).createCell(0).setCellValue("РАСПИСАНИЕ ЗАНЯТИЙ на 02.02.2026 - 07.02.2026");
+            Row header = sheet.createRow(2);
+            header.createCell(0).setCellValue("День");
+            header.createCell(3).setCellValue("ИС-101");
+            header.createCell(7).setCellValue("ИС-102");
+            sheet.createRow(3);
+
+            List<Row> rows = new ArrayList<>();
+            String[] times = {"08:30-10:00", "10:10-11:40"};
+            String[] days = {"ПОНЕДЕЛЬНИК", "ВТОРНИК"};
+            for (int d = 0; d < days.length; d++) {
+                for (int n = 1; n <= 2; n++) {
+                    Row subjects = sheet.createRow(4 + d * 4 + (n - 1) * 2);
+                    subjects.createCell(0).setCellValue(days[d]);
+                    subjects.createCell(1).setCellValue(n);
+                    subjects.createCell(2).setCellValue(times[n - 1]);
+                    rows.add(subjects);
+                    rows.add(sheet.createRow(subjects.getRowNum() + 1));
+                }
+            }
+
+            // ИС-101, понедельник 1: пара у всей группы — объединение на три колонки
+            rows.get(0).createCell(3).setCellValue("Математика");
+            rows.get(0).createCell(6).setCellValue(201);
+            rows.get(1).createCell(3).setCellValue("Иванов И.И.");
+            sheet.addMergedRegion(new CellRangeAddress(4, 4, 3, 5));
+            // ИС-102, понедельник 1: подгруппы
+            rows.get(0).createCell(7).setCellValue("Физика");
+            rows.get(0).createCell(8).setCellValue("301");
+            rows.get(0).createCell(9).setCellValue("Химия");
+            rows.get(0).createCell(10).setCellValue("302");
+            rows.get(1).createCell(7).setCellValue("Петров П.П.");
+            rows.get(1).createCell(9).setCellValue("Сидоров С.С.");
+            // ИС-101, вторник 1
+            rows.get(4).createCell(3).setCellValue(tuesday);
+            rows.get(4).createCell(6).setCellValue(202);
+            sheet.addMergedRegion(new CellRangeAddress(8, 8, 3, 5));
+
+            return CellGrid.fromSheet(sheet);
+        }
+    }
+}